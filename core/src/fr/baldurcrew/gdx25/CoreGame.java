@@ -21,9 +21,12 @@ import fr.baldurcrew.gdx25.character.CharacterResources;
 import fr.baldurcrew.gdx25.character.CharacterSpawner;
 import fr.baldurcrew.gdx25.layer.ParallaxLayer;
 import fr.baldurcrew.gdx25.monster.Monster;
+import fr.baldurcrew.gdx25.physics.ContactEvent;
 import fr.baldurcrew.gdx25.physics.WorldContactListener;
 import fr.baldurcrew.gdx25.utils.NumericRenderer;
 import fr.baldurcrew.gdx25.utils.Range;
+import fr.baldurcrew.gdx25.water.ChunkRunner;
+import fr.baldurcrew.gdx25.water.SpringsKernel;
 import fr.baldurcrew.gdx25.water.WaterSimulation;
 import fr.baldurcrew.gdx25.water.WaveEmitter;
 import imgui.ImGui;
@@ -60,6 +63,21 @@ public class CoreGame extends ApplicationAdapter {
     public static boolean debugClearColor = false;
     public static boolean debugEnableCharacterGeneration = true;
     public static boolean debugEnableWaterRendering = true;
+    public static boolean debugEnableWaterFixturesReshaping = true;
+    public static boolean debugEnableAdaptiveWaterLod = true;
+    public static boolean debugEnableHeightfieldBuoyancy = false;
+    public static boolean debugEnableForceAggregation = true;
+    public static boolean debugEnableSubmergedPolygonCache = true;
+    public static boolean debugEnableParallelSprings = true;
+    public static boolean debugEnableProvidedSpringsKernel = true;
+    public static boolean debugEnableSpringsKernelCheck = false;
+    public static boolean debugEnableImplicitWavesPropagation = false;
+    public static boolean debugEnableFixedPointSprings = false;
+    public static boolean debugEnableShaderDisplacedWater = false;
+    public static boolean debugEnablePropagationComparison = false;
+    public static boolean debugEnableWaterSleep = true;
+    public static boolean debugEnableAbsorbingBoundaries = true;
+    public static boolean debugEnableSpectralSwell = true;
     public static boolean debugEnableBoatRendering = true;
     public static boolean debugEnableWaveGeneration = true;
     public static boolean debugEnableWaterDrag = true;
@@ -118,13 +136,37 @@ public class CoreGame extends ApplicationAdapter {
     private float[] uiWaterSpringsDampeningFactor = new float[1];
     //    private float[] uiWaterBaseWaterLevel = new float[1];
     private float[] uiWaterDensity = new float[1];
+    private int[] uiWaterFixturesLodMaxSprings = new int[1];
+    private float[] uiWaterFixturesLodDistanceStep = new float[1];
+    private int[] uiWaterAbsorbingBoundarySprings = new int[1];
+    private float[] uiWaterAbsorbingBoundaryStrength = new float[1];
+    private float[] uiWaterSubmergedPositionTolerance = new float[1];
+    private float[] uiWaterSubmergedAngleTolerance = new float[1];
+    private float[] uiWaterSubmergedHeightTolerance = new float[1];
     private float[] uiWaterFakeVelocityX = new float[1];
     private float[] uiWaterFakeVelocityY = new float[1];
     private float[] uiWaveEmitterAmplitudeRange = new float[2];
     private float[] uiWaveEmitterPeriodRange = new float[2];
+    private float[] uiWaveEmitterSpectrum = new float[2];
     private float[] uiSailingTime = new float[1];
     private GameState gameState;
+    /**
+     * Runs the chunks of the parallel springs solver, provided by the launcher.
+     */
+    private final ChunkRunner chunkRunner;
+    /**
+     * Arithmetic of the springs, provided by the launcher.
+     */
+    private final SpringsKernel springsKernel;
+
+    public CoreGame() {
+        this(ChunkRunner.SEQUENTIAL, SpringsKernel.SCALAR);
+    }
 
+    public CoreGame(ChunkRunner chunkRunner, SpringsKernel springsKernel) {
+        this.chunkRunner = chunkRunner;
+        this.springsKernel = springsKernel;
+    }
 
     @Override
     public void create() {
@@ -197,19 +239,21 @@ public class CoreGame extends ApplicationAdapter {
         playMusic(music);
 
         world = new World(new Vector2(0, Constants.GRAVITY_VALUE), true);
-        worldContactListener = new WorldContactListener();
+        worldContactListener = new WorldContactListener(world);
         world.setContactListener(worldContactListener);
 
-        final Range waterSimulationRange = Range.buildRangeEx(-0.25f * Constants.VIEWPORT_WIDTH, 1.25f * Constants.VIEWPORT_WIDTH);
+        // The absorbing boundaries of the water mostly lie outside of the viewport
+        final Range waterSimulationRange = Range.buildRangeEx(-0.1f * Constants.VIEWPORT_WIDTH, 1.1f * Constants.VIEWPORT_WIDTH);
         // Only simulate physics under the boat
         final float physicSimulationMargin = Boat.BOAT_WIDTH * 0.2f;
 //        final Range waterPhysicsSimulationRange = waterSimulationRange.buildSubRange(waterSimulationRange.halfExtent - Boat.BOAT_WIDTH / 2f - physicSimulationMargin, Boat.BOAT_WIDTH + 2 * physicSimulationMargin);
-        final Range waterPhysicsSimulationRange = waterSimulationRange.buildSubRange(0.25f * Constants.VIEWPORT_WIDTH, Constants.VIEWPORT_WIDTH);
+        final Range waterPhysicsSimulationRange = waterSimulationRange.buildSubRange(0.1f * Constants.VIEWPORT_WIDTH, Constants.VIEWPORT_WIDTH);
 
-        water = new WaterSimulation(world, 80, waterSimulationRange, waterPhysicsSimulationRange);
-        worldContactListener.addListener(water);
+        water = new WaterSimulation(world, 64, 4, waterSimulationRange, waterPhysicsSimulationRange, chunkRunner, springsKernel);
+        worldContactListener.addListener(water.getBody(), water, ContactEvent.BEGIN | ContactEvent.END);
         boat = new Boat(world, Constants.VIEWPORT_WIDTH / 2f, water.getWaterLevel() + 1f);
-        waveEmitter = new WaveEmitter(water, defaultWavePeriodRange, defaultWaveAmplitudeRange); // TODO Evolve over time to increase the difficulty
+        water.addBuoyantBody(boat.getBody());
+        waveEmitter = new WaveEmitter(water, defaultWavePeriodRange, defaultWaveAmplitudeRange, Difficulty.SWELL_AMPLITUDE_AT_MIN_SCALING, Difficulty.CHOP_AMPLITUDE_AT_MIN_SCALING); // TODO Evolve over time to increase the difficulty
 
         final float charsSpawnPadding = Boat.BOAT_WIDTH * 0.2f;
         charactersSpawnRangeX = waterSimulationRange.buildSubRange(waterSimulationRange.halfExtent - Boat.BOAT_WIDTH / 2f + charsSpawnPadding, Boat.BOAT_WIDTH - 2 * charsSpawnPadding);
@@ -245,6 +289,13 @@ public class CoreGame extends ApplicationAdapter {
         uiWaterSpringsDampeningFactor[0] = water.getSpringsDampening();
 //        uiWaterBaseWaterLevel[0] = water.getWaterLevel();
         uiWaterDensity[0] = water.getDensity();
+        uiWaterFixturesLodMaxSprings[0] = water.getFixturesLodMaxSprings();
+        uiWaterFixturesLodDistanceStep[0] = water.getFixturesLodDistanceStep();
+        uiWaterAbsorbingBoundarySprings[0] = water.getAbsorbingBoundarySprings();
+        uiWaterAbsorbingBoundaryStrength[0] = water.getAbsorbingBoundaryStrength();
+        uiWaterSubmergedPositionTolerance[0] = water.getSubmergedPositionTolerance();
+        uiWaterSubmergedAngleTolerance[0] = water.getSubmergedAngleTolerance();
+        uiWaterSubmergedHeightTolerance[0] = water.getSubmergedHeightTolerance();
         uiWaterFakeVelocityX[0] = water.getFakeWaterVelocityX();
         uiWaterFakeVelocityY[0] = water.getFakeWaterVelocityY();
         uiWaveEmitterAmplitudeRange[0] = defaultWaveAmplitudeRange.from;
@@ -365,6 +416,86 @@ public class CoreGame extends ApplicationAdapter {
         if (ImGui.checkbox("Water rendering", debugEnableWaterRendering)) {
             debugEnableWaterRendering = !debugEnableWaterRendering;
         }
+        if (ImGui.checkbox("Water fixtures reshaping", debugEnableWaterFixturesReshaping)) {
+            debugEnableWaterFixturesReshaping = !debugEnableWaterFixturesReshaping;
+        }
+        if (ImGui.checkbox("Heightfield buoyancy", debugEnableHeightfieldBuoyancy)) {
+            debugEnableHeightfieldBuoyancy = !debugEnableHeightfieldBuoyancy;
+        }
+        if (ImGui.checkbox("Water forces aggregation", debugEnableForceAggregation)) {
+            debugEnableForceAggregation = !debugEnableForceAggregation;
+        }
+        ImGui.textDisabled("Water force calls " + water.getForceCallsCount());
+        ImGui.textDisabled("Contact events " + worldContactListener.getDeliveredEventsCount() + " pre-solves merged " + worldContactListener.getMergedPreSolvesCount()
+            + " begin/end cancelled " + worldContactListener.getCancelledPairsCount());
+        if (ImGui.checkbox("Submerged polygons cache", debugEnableSubmergedPolygonCache)) {
+            debugEnableSubmergedPolygonCache = !debugEnableSubmergedPolygonCache;
+        }
+        if (ImGui.sliderFloat("Submerged position tolerance", uiWaterSubmergedPositionTolerance, 0f, 0.05f)) {
+            water.setSubmergedPositionTolerance(uiWaterSubmergedPositionTolerance[0]);
+        }
+        if (ImGui.sliderFloat("Submerged angle tolerance", uiWaterSubmergedAngleTolerance, 0f, 0.05f)) {
+            water.setSubmergedAngleTolerance(uiWaterSubmergedAngleTolerance[0]);
+        }
+        if (ImGui.sliderFloat("Submerged height tolerance", uiWaterSubmergedHeightTolerance, 0f, 0.05f)) {
+            water.setSubmergedHeightTolerance(uiWaterSubmergedHeightTolerance[0]);
+        }
+        ImGui.textDisabled("Submerged polygons cache hits " + water.getSubmergedPolygonCacheHits() + " misses " + water.getSubmergedPolygonCacheMisses());
+        if (ImGui.checkbox("Adaptive water LOD", debugEnableAdaptiveWaterLod)) {
+            debugEnableAdaptiveWaterLod = !debugEnableAdaptiveWaterLod;
+        }
+        if (ImGui.dragInt("Water LOD max springs per fixture", uiWaterFixturesLodMaxSprings, 1, 1, 16)) {
+            water.setFixturesLodMaxSprings(uiWaterFixturesLodMaxSprings[0]);
+        }
+        if (ImGui.sliderFloat("Water LOD distance step", uiWaterFixturesLodDistanceStep, 0f, 10f)) {
+            water.setFixturesLodDistanceStep(uiWaterFixturesLodDistanceStep[0]);
+        }
+        ImGui.textDisabled("Water fixtures " + water.getFixtureCount() + " touched by " + water.getImmersedBodiesCount() + " bodies");
+        if (ImGui.checkbox("Absorbing boundaries", debugEnableAbsorbingBoundaries)) {
+            debugEnableAbsorbingBoundaries = !debugEnableAbsorbingBoundaries;
+        }
+        if (ImGui.dragInt("Absorbing boundary springs", uiWaterAbsorbingBoundarySprings, 1, 0, 16)) {
+            water.setAbsorbingBoundarySprings(uiWaterAbsorbingBoundarySprings[0]);
+        }
+        if (ImGui.sliderFloat("Absorbing boundary strength", uiWaterAbsorbingBoundaryStrength, 0f, 1f)) {
+            water.setAbsorbingBoundaryStrength(uiWaterAbsorbingBoundaryStrength[0]);
+        }
+        if (ImGui.checkbox("Water sleep", debugEnableWaterSleep)) {
+            debugEnableWaterSleep = !debugEnableWaterSleep;
+        }
+        ImGui.textDisabled("Active springs " + water.getActiveSpringsCount());
+        ImGui.textDisabled("Frozen water chunks " + water.getFrozenChunksCount());
+        ImGui.textDisabled("Springs snapshots " + water.getSpringsSnapshotsCount());
+        if (ImGui.checkbox("Shader displaced water", debugEnableShaderDisplacedWater)) {
+            debugEnableShaderDisplacedWater = !debugEnableShaderDisplacedWater;
+        }
+        ImGui.textDisabled("Water mesh bytes uploaded " + water.getRenderUploadedBytes());
+        ImGui.textDisabled("Water mesh chunks visible " + water.getRenderVisibleChunksCount() + " / " + water.getRenderChunksCount());
+        if (ImGui.checkbox("Implicit waves propagation", debugEnableImplicitWavesPropagation)) {
+            debugEnableImplicitWavesPropagation = !debugEnableImplicitWavesPropagation;
+        }
+        if (ImGui.checkbox("Compare with explicit propagation", debugEnablePropagationComparison)) {
+            debugEnablePropagationComparison = !debugEnablePropagationComparison;
+        }
+        if (debugEnablePropagationComparison) {
+            ImGui.textDisabled(String.format("Waves deviation %.4f, explicit %.4f", water.getWavesDeviation(), water.getExplicitWavesDeviation()));
+            ImGui.textDisabled(String.format("Max height difference %.4f", water.getPropagationMaxHeightDifference()));
+        }
+        if (ImGui.checkbox("Fixed point springs (deterministic)", debugEnableFixedPointSprings)) {
+            debugEnableFixedPointSprings = !debugEnableFixedPointSprings;
+        }
+        if (ImGui.checkbox("Parallel springs solver", debugEnableParallelSprings)) {
+            debugEnableParallelSprings = !debugEnableParallelSprings;
+        }
+        if (ImGui.checkbox("Provided springs kernel", debugEnableProvidedSpringsKernel)) {
+            debugEnableProvidedSpringsKernel = !debugEnableProvidedSpringsKernel;
+        }
+        if (ImGui.checkbox("Check springs kernel against scalar", debugEnableSpringsKernelCheck)) {
+            debugEnableSpringsKernelCheck = !debugEnableSpringsKernelCheck;
+        }
+        if (debugEnableSpringsKernelCheck) {
+            ImGui.textDisabled("Springs kernel mismatches " + water.getSpringsKernelMismatches());
+        }
         if (ImGui.checkbox("Wave Generation", debugEnableWaveGeneration)) {
             debugEnableWaveGeneration = !debugEnableWaveGeneration;
         }
@@ -413,6 +544,14 @@ public class CoreGame extends ApplicationAdapter {
         if (ImGui.sliderFloat2("Wave emitter period range", uiWaveEmitterPeriodRange, 0f, 6f)) {
             waveEmitter.setPeriodRange(Range.buildRange(uiWaveEmitterPeriodRange[0], uiWaveEmitterPeriodRange[1]));
         }
+        if (ImGui.checkbox("Spectral swell", debugEnableSpectralSwell)) {
+            debugEnableSpectralSwell = !debugEnableSpectralSwell;
+        }
+        uiWaveEmitterSpectrum[0] = waveEmitter.getSwellAmplitude();
+        uiWaveEmitterSpectrum[1] = waveEmitter.getChopAmplitude();
+        if (ImGui.sliderFloat2("Swell and chop amplitudes", uiWaveEmitterSpectrum, 0f, 1f)) {
+            waveEmitter.setSpectrum(uiWaveEmitterSpectrum[0], uiWaveEmitterSpectrum[1]);
+        }
 
         ImGui.separator();
         ImGui.text("Debug");
@@ -453,6 +592,9 @@ public class CoreGame extends ApplicationAdapter {
         var minWaveAmplitude = Difficulty.MIN_WAVES_AMPLITUDE_AT_MIN_SCALING + difficultyMultiplier * (Difficulty.MIN_WAVES_AMPLITUDE_AT_MAX_SCALING - Difficulty.MIN_WAVES_AMPLITUDE_AT_MIN_SCALING);
         var maxWaveAmplitude = Difficulty.MAX_WAVES_AMPLITUDE_AT_MIN_SCALING + difficultyMultiplier * (Difficulty.MAX_WAVES_AMPLITUDE_AT_MAX_SCALING - Difficulty.MAX_WAVES_AMPLITUDE_AT_MIN_SCALING);
 
+        var swellAmplitude = Difficulty.SWELL_AMPLITUDE_AT_MIN_SCALING + difficultyMultiplier * (Difficulty.SWELL_AMPLITUDE_AT_MAX_SCALING - Difficulty.SWELL_AMPLITUDE_AT_MIN_SCALING);
+        var chopAmplitude = Difficulty.CHOP_AMPLITUDE_AT_MIN_SCALING + difficultyMultiplier * (Difficulty.CHOP_AMPLITUDE_AT_MAX_SCALING - Difficulty.CHOP_AMPLITUDE_AT_MIN_SCALING);
+
         var minAiSpawnPeriod = Difficulty.MIN_AI_SPAWN_PERIOD_AT_MIN_SCALING + difficultyMultiplier * (Difficulty.MIN_AI_SPAWN_PERIOD_AT_MAX_SCALING - Difficulty.MIN_AI_SPAWN_PERIOD_AT_MIN_SCALING);
         var maxAiSpawnPeriod = Difficulty.MAX_AI_SPAWN_PERIOD_AT_MIN_SCALING + difficultyMultiplier * (Difficulty.MAX_AI_SPAWN_PERIOD_AT_MAX_SCALING - Difficulty.MAX_AI_SPAWN_PERIOD_AT_MIN_SCALING);
 
@@ -460,6 +602,7 @@ public class CoreGame extends ApplicationAdapter {
         water.setFakeWaterVelocityY(fakeWaterVelocityY);
         water.setWavesPropagationSpreadFactor(waveSpreadFactor);
         waveEmitter.setAmplitudeRange(Range.buildRange(minWaveAmplitude, maxWaveAmplitude));
+        waveEmitter.setSpectrum(swellAmplitude, chopAmplitude);
         characterSpawner.setSpawnPeriod(Range.buildRange(minAiSpawnPeriod, maxAiSpawnPeriod));
     }
 
@@ -517,8 +660,10 @@ public class CoreGame extends ApplicationAdapter {
             if (gameState == GameState.Playing) {
                 characterSpawner.update();
             }
+            water.scrollTo(camera.position.x);
             water.update();
             world.step(Constants.TIME_STEP, Constants.VELOCITY_ITERATIONS, Constants.POSITION_ITERATIONS);
+            worldContactListener.deliverEvents();
             final boolean upsideDownBoat = boat.update();
             if (upsideDownBoat && !boat.isEaten()) {
                 monster.eat(boat);
@@ -554,7 +699,7 @@ public class CoreGame extends ApplicationAdapter {
     public Character spawnCharacter(int charIndex, boolean aiControlled, float x, float y) {
         final var spawned = new Character(world, this, boat, water, charIndex, aiControlled, x, y, characterDensity, characterFriction, characterRestitution);
         characters.add(spawned);
-        worldContactListener.addListener(spawned);
+        worldContactListener.addListener(spawned.getBody(), spawned, ContactEvent.BEGIN | ContactEvent.END | ContactEvent.PRE_SOLVE | ContactEvent.MANIFOLD);
         CharacterResources.getInstance().getRandomSpawnSound().play(DEFAULT_AUDIO_VOLUME);
 
         return spawned;
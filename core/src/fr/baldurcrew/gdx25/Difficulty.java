@@ -17,6 +17,11 @@ public class Difficulty {
     public final static float MAX_AI_SPAWN_PERIOD_AT_MIN_SCALING = 10f;
     public final static float MAX_AI_SPAWN_PERIOD_AT_MAX_SCALING = 5f;
 
+    public final static float SWELL_AMPLITUDE_AT_MIN_SCALING = 0.15f;
+    public final static float SWELL_AMPLITUDE_AT_MAX_SCALING = 0.6f;
+    public final static float CHOP_AMPLITUDE_AT_MIN_SCALING = 0.02f;
+    public final static float CHOP_AMPLITUDE_AT_MAX_SCALING = 0.15f;
+
     public final static float WAVE_SPREAD_FACTOR_AT_MIN_SCALING = 0.1f;
     public final static float WAVE_SPREAD_FACTOR_AT_MAX_SCALING = 0.2f;
 
@@ -11,6 +11,7 @@ import fr.baldurcrew.gdx25.Constants;
 import fr.baldurcrew.gdx25.CoreGame;
 import fr.baldurcrew.gdx25.monster.Eatable;
 import fr.baldurcrew.gdx25.monster.Monster;
+import fr.baldurcrew.gdx25.physics.BodyUserData;
 
 public class Boat implements Disposable, Eatable {
 
@@ -61,7 +62,7 @@ public class Boat implements Disposable, Eatable {
         bodyDef.angularDamping = DEFAULT_BOAT_ANGULAR_DAMPING;
 
         final var body = world.createBody(bodyDef);
-        body.setUserData(this);
+        body.setUserData(new BodyUserData(this));
 
         final var boatPolygon = new PolygonShape();
         float[] vertices = new float[]{-BOAT_WIDTH / 2f, 0, -BOAT_WIDTH / 3f, -BOAT_HEIGHT / 3f, 0, -2f, BOAT_WIDTH / 3f, -BOAT_HEIGHT / 3f, BOAT_WIDTH / 2.2f, 0};
@@ -16,13 +16,11 @@ import fr.baldurcrew.gdx25.boat.Boat;
 import fr.baldurcrew.gdx25.character.ai.AiController;
 import fr.baldurcrew.gdx25.monster.Eatable;
 import fr.baldurcrew.gdx25.monster.Monster;
+import fr.baldurcrew.gdx25.physics.BodyUserData;
+import fr.baldurcrew.gdx25.physics.ContactEvent;
 import fr.baldurcrew.gdx25.physics.ContactHandler;
-import fr.baldurcrew.gdx25.physics.FixtureContact;
 import fr.baldurcrew.gdx25.water.WaterSimulation;
 
-import java.util.HashSet;
-import java.util.Set;
-
 public class Character implements Disposable, ContactHandler, Eatable {
 
     private static final float MAX_X_MOVEMENT_VELOCITY = 5f;
@@ -39,10 +37,6 @@ public class Character implements Disposable, ContactHandler, Eatable {
     private boolean touchingBoat;
     private boolean touchingWater;
     private boolean hasBeenInWaterForAMoment;
-    /**
-     * Updated list of water fixtures in contact with this character
-     */
-    private Set<Fixture> contactWaterFixtures;
     private float inWaterTimer;
     private boolean hasTouchedBoatRecently;
     private float lastBoatTouchTimer;
@@ -55,7 +49,8 @@ public class Character implements Disposable, ContactHandler, Eatable {
     private MoveState previousMoveState;
     private Boat boat;
     private WaterSimulation water;
-    private Vector2 boatContactPoint;
+    private final Vector2 boatContactPoint = new Vector2();
+    private boolean hasBoatContactPoint;
     private boolean isAlive;
     private CoreGame game;
     private MoveState brainOverride;
@@ -82,6 +77,7 @@ public class Character implements Disposable, ContactHandler, Eatable {
         this.moveState = MoveState.IDLE;
         this.shouldFlipX = false;
         this.body = createBody(world, x, y, density, friction, restitution);
+        water.addBuoyantBody(body);
 
         animationTimer = 0f;
 
@@ -90,7 +86,6 @@ public class Character implements Disposable, ContactHandler, Eatable {
         lastBoatTouchTimer = 0f;
 
         touchingWater = false;
-        contactWaterFixtures = new HashSet<>();
         inWaterTimer = 0f;
         hasBeenInWaterForAMoment = false;
 
@@ -108,7 +103,7 @@ public class Character implements Disposable, ContactHandler, Eatable {
         bodyDef.fixedRotation = true;
 
         final var body = world.createBody(bodyDef);
-        body.setUserData(this);
+        body.setUserData(new BodyUserData(this));
         {
             final var characterPolygon = new PolygonShape();
             final var collider = new FixtureDef();
@@ -277,8 +272,9 @@ public class Character implements Disposable, ContactHandler, Eatable {
             }
         }
 
-        if (contactWaterFixtures.isEmpty()) {
-            touchingWater = false;
+        // Queried from the water surface, without contacts with the water fixtures
+        touchingWater = body.getPosition().y - CharacterResources.CHARACTER_HEIGHT / 2f < water.getSurfaceHeight(getX());
+        if (!touchingWater) {
             hasBeenInWaterForAMoment = false;
             inWaterTimer = 0;
         }
@@ -308,7 +304,7 @@ public class Character implements Disposable, ContactHandler, Eatable {
 
         var velocity = body.getLinearVelocity();
         // Here, compute the character relative velocity to its environment (boat, ..)
-        if (touchingBoat && boatContactPoint != null) {
+        if (touchingBoat && hasBoatContactPoint) {
             final float boatAngularVelocity = boat.getBody().getAngularVelocity();
             if (boatAngularVelocity != 0) {
                 final Vector2 contactVector = boatContactPoint.cpy().sub(boat.getBody().getPosition());
@@ -364,43 +360,37 @@ public class Character implements Disposable, ContactHandler, Eatable {
     }
 
     @Override
-    public void handleContactBegin(FixtureContact contact) {
-        if (contact.otherFixture().getBody().getUserData() == boat) {
-            if (contact.handledFixture().isSensor() && contact.handledFixture().getUserData() == CharacterSensors.Foot) {
+    public void handleContactBegin(ContactEvent contact) {
+        if (BodyUserData.getOwner(contact.getOtherFixture().getBody()) == boat) {
+            if (contact.getHandledFixture().isSensor() && contact.getHandledFixture().getUserData() == CharacterSensors.Foot) {
                 touchingBoat = true;
                 hasTouchedBoatRecently = true;
                 lastBoatTouchTimer = 0;
 
-            } else if (contact.handledFixture().isSensor() && contact.handledFixture().getUserData() == CharacterSensors.Left) {
+            } else if (contact.getHandledFixture().isSensor() && contact.getHandledFixture().getUserData() == CharacterSensors.Left) {
                 // Quick & dirty hack : disable AI when it's on the boat's sides to prevent the AI physics from flipping it instantly
                 brainOverride = MoveState.RIGHT;
                 Gdx.app.log("Char", "brain override left sensor");
-            } else if (contact.handledFixture().isSensor() && contact.handledFixture().getUserData() == CharacterSensors.Right) {
+            } else if (contact.getHandledFixture().isSensor() && contact.getHandledFixture().getUserData() == CharacterSensors.Right) {
                 brainOverride = MoveState.IDLE;
                 Gdx.app.log("Char", "brain override right sensor");
             }
         }
-        if (!contact.handledFixture().isSensor() && contact.otherFixture().getBody().getUserData() == water) {
-            contactWaterFixtures.add(contact.otherFixture());
-            touchingWater = true;
-        }
     }
 
     @Override
-    public void handleContactEnd(FixtureContact contact) {
-        if (!contact.handledFixture().isSensor() && contact.otherFixture().getBody().getUserData() == boat) {
+    public void handleContactEnd(ContactEvent contact) {
+        if (!contact.getHandledFixture().isSensor() && BodyUserData.getOwner(contact.getOtherFixture().getBody()) == boat) {
             touchingBoat = false;
         }
-        if (!contact.handledFixture().isSensor() && contact.otherFixture().getBody().getUserData() == water) {
-            contactWaterFixtures.remove(contact.otherFixture());
-        }
     }
 
     @Override
-    public void handlePreSolve(Contact contact, FixtureContact fixtures) {
-        if (!fixtures.handledFixture().isSensor() && fixtures.otherFixture().getBody().getUserData() == boat) {
-            if (contact.getWorldManifold().getNumberOfContactPoints() > 0) {
-                boatContactPoint = contact.getWorldManifold().getPoints()[0];
+    public void handlePreSolve(ContactEvent contact) {
+        if (!contact.getHandledFixture().isSensor() && BodyUserData.getOwner(contact.getOtherFixture().getBody()) == boat) {
+            if (contact.getManifoldPointsCount() > 0) {
+                boatContactPoint.set(contact.getManifoldPoint(0));
+                hasBoatContactPoint = true;
             }
         }
     }
@@ -409,6 +399,10 @@ public class Character implements Disposable, ContactHandler, Eatable {
         return body.getPosition().x;
     }
 
+    public Body getBody() {
+        return body;
+    }
+
     public void prepareToBeEaten(float yToBeEaten) {
         this.freezeX = true;
         this.freezeToX = this.getX();
@@ -0,0 +1,54 @@
+package fr.baldurcrew.gdx25.physics;
+
+import com.badlogic.gdx.physics.box2d.Body;
+
+/**
+ * User data of the bodies of the world. Holds the body owner, and what the physics code would otherwise look up by body on each contact callback.
+ */
+public class BodyUserData {
+
+    private final Object owner;
+    /**
+     * Handler registered in {@link WorldContactListener}, null if none.
+     */
+    ContactHandler contactHandler;
+    /**
+     * Event types the handler registered for.
+     */
+    int contactEventTypes;
+    /**
+     * Contact events of the body fixtures during the current step, chained, null once delivered.
+     */
+    ContactEvent stepEvents;
+    /**
+     * Slot of the body in the water occupancy, -1 while it does not touch the water.
+     */
+    private int occupancySlot = -1;
+
+    /**
+     * @param owner Game object owning the body
+     */
+    public BodyUserData(Object owner) {
+        this.owner = owner;
+    }
+
+    public Object getOwner() {
+        return owner;
+    }
+
+    public int getOccupancySlot() {
+        return occupancySlot;
+    }
+
+    public void setOccupancySlot(int occupancySlot) {
+        this.occupancySlot = occupancySlot;
+    }
+
+    /**
+     * @return the owner of the body, null if the body has no {@link BodyUserData}
+     */
+    public static Object getOwner(Body body) {
+        final var userData = body.getUserData();
+        return userData instanceof BodyUserData ? ((BodyUserData) userData).owner : null;
+    }
+}
@@ -0,0 +1,111 @@
+package fr.baldurcrew.gdx25.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.WorldManifold;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Contact event recorded by {@link WorldContactListener}, seen from the fixture of the handler.
+ * <p>
+ * Events are pooled: an event is only valid during the handler call, and must be copied to be kept.
+ */
+public class ContactEvent implements Pool.Poolable {
+
+    public static final int BEGIN = 1;
+    public static final int END = 1 << 1;
+    public static final int PRE_SOLVE = 1 << 2;
+    /**
+     * Copies the world manifold of the pre-solve events, only requested by the handlers using it.
+     */
+    public static final int MANIFOLD = 1 << 3;
+    /**
+     * b2_maxManifoldPoints
+     */
+    private static final int MAX_MANIFOLD_POINTS = 2;
+
+    private final Vector2[] manifoldPoints = new Vector2[MAX_MANIFOLD_POINTS];
+    private int type;
+    private ContactHandler handler;
+    private Fixture handledFixture;
+    private Fixture otherFixture;
+    private int manifoldPointsCount;
+    /**
+     * Next event of the same handled body during the current step.
+     */
+    ContactEvent nextOfBody;
+    /**
+     * Cancelled by the opposite event of the same fixtures during the step, not delivered.
+     */
+    boolean cancelled;
+
+    public ContactEvent() {
+        for (int i = 0; i < MAX_MANIFOLD_POINTS; i++) {
+            manifoldPoints[i] = new Vector2();
+        }
+    }
+
+    void set(int type, ContactHandler handler, Fixture handledFixture, Fixture otherFixture) {
+        this.type = type;
+        this.handler = handler;
+        this.handledFixture = handledFixture;
+        this.otherFixture = otherFixture;
+    }
+
+    void setManifold(WorldManifold manifold) {
+        manifoldPointsCount = manifold.getNumberOfContactPoints();
+        for (int i = 0; i < manifoldPointsCount; i++) {
+            manifoldPoints[i].set(manifold.getPoints()[i]);
+        }
+    }
+
+    boolean matches(int type, Fixture handledFixture, Fixture otherFixture) {
+        return !cancelled && this.type == type && this.handledFixture == handledFixture && this.otherFixture == otherFixture;
+    }
+
+    void deliver() {
+        if (cancelled) return;
+
+        switch (type) {
+            case BEGIN -> handler.handleContactBegin(this);
+            case END -> handler.handleContactEnd(this);
+            case PRE_SOLVE -> handler.handlePreSolve(this);
+        }
+    }
+
+    /**
+     * @return {@link #BEGIN}, {@link #END} or {@link #PRE_SOLVE}
+     */
+    public int getType() {
+        return type;
+    }
+
+    public Fixture getHandledFixture() {
+        return handledFixture;
+    }
+
+    public Fixture getOtherFixture() {
+        return otherFixture;
+    }
+
+    /**
+     * @return the manifold points count of the last pre-solve of the step, 0 unless the handler registered for {@link #MANIFOLD}
+     */
+    public int getManifoldPointsCount() {
+        return manifoldPointsCount;
+    }
+
+    public Vector2 getManifoldPoint(int index) {
+        return manifoldPoints[index];
+    }
+
+    @Override
+    public void reset() {
+        handler = null;
+        handledFixture = null;
+        otherFixture = null;
+        manifoldPointsCount = 0;
+        nextOfBody = null;
+        cancelled = false;
+    }
+}
@@ -1,11 +1,15 @@
 package fr.baldurcrew.gdx25.physics;
 
-import com.badlogic.gdx.physics.box2d.Contact;
-
+/**
+ * Receives the contact events of the fixtures it registered for in {@link WorldContactListener}, after the world step.
+ */
 public interface ContactHandler {
-    void handleContactBegin(FixtureContact contact);
+    void handleContactBegin(ContactEvent contact);
 
-    void handleContactEnd(FixtureContact contact);
+    void handleContactEnd(ContactEvent contact);
 
-    void handlePreSolve(Contact contact, FixtureContact fixtures);
+    /**
+     * Called once per step and contact, with the last manifold of the step if requested.
+     */
+    void handlePreSolve(ContactEvent contact);
 }
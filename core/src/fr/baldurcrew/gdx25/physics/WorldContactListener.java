@@ -1,69 +1,186 @@
 package fr.baldurcrew.gdx25.physics;
 
 import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Records the contact events raised during the world step, and delivers them in one batch after it with {@link #deliverEvents()}.
+ * <p>
+ * Handlers register for the fixtures of a body, and only for the event types they use. The registration is kept in the {@link BodyUserData}
+ * of the body, so each callback finds its handler without any lookup. The events are pooled. The events of a step are chained per handled body:
+ * the pre-solves of a contact are merged into one event per step, and a begin and an end of the same fixtures during a step cancel each other,
+ * neither is delivered.
+ * <p>
+ * Events raised outside of the step, when a fixture is destroyed, are delivered right away: libGDX reuses the destroyed fixture objects.
+ */
+public class WorldContactListener implements ContactListener {
+    private final World world;
+    private final Array<ContactEvent> events = new Array<>();
+    /**
+     * Bodies having events chained during the current step.
+     */
+    private final Array<BodyUserData> eventBodies = new Array<>();
+    private final Pool<ContactEvent> eventsPool = new Pool<>() {
+        @Override
+        protected ContactEvent newObject() {
+            return new ContactEvent();
+        }
+    };
+    /**
+     * Union of the event types of all the handlers.
+     */
+    private int registeredEventTypes;
+    private int deliveredEventsCount;
+    private int deliveredMergedPreSolvesCount;
+    private int mergedPreSolvesCount;
+    private int deliveredCancelledPairsCount;
+    private int cancelledPairsCount;
+
+    public WorldContactListener(World world) {
+        this.world = world;
+    }
 
-import java.util.HashMap;
+    /**
+     * @param body       Body whose fixtures are handled, its user data must be a {@link BodyUserData}
+     * @param listener   Handler of the fixtures of the body
+     * @param eventTypes Combination of {@link ContactEvent#BEGIN}, {@link ContactEvent#END}, {@link ContactEvent#PRE_SOLVE} and
+     *                   {@link ContactEvent#MANIFOLD}
+     */
+    public void addListener(Body body, ContactHandler listener, int eventTypes) {
+        final var userData = (BodyUserData) body.getUserData();
+        userData.contactHandler = listener;
+        userData.contactEventTypes = eventTypes;
+        registeredEventTypes |= eventTypes;
+    }
 
+    /**
+     * Delivers the events recorded during the last world step, in the order they were raised.
+     */
+    public void deliverEvents() {
+        deliveredEventsCount = events.size - cancelledPairsCount;
+        deliveredMergedPreSolvesCount = mergedPreSolvesCount;
+        mergedPreSolvesCount = 0;
+        deliveredCancelledPairsCount = cancelledPairsCount;
+        cancelledPairsCount = 0;
+        for (int i = 0; i < events.size; i++) {
+            events.get(i).deliver();
+        }
+        eventsPool.freeAll(events);
+        events.clear();
+        for (int i = 0; i < eventBodies.size; i++) {
+            eventBodies.get(i).stepEvents = null;
+        }
+        eventBodies.clear();
+    }
 
-public class WorldContactListener implements ContactListener {
-    private HashMap<Object, ContactHandler> contactHandlers = new HashMap<>();
+    @Override
+    public void beginContact(Contact contact) {
+        if ((registeredEventTypes & ContactEvent.BEGIN) == 0) return;
 
-    public void addListener(ContactHandler listener) {
-        contactHandlers.put(listener, listener);
+        dispatch(ContactEvent.BEGIN, contact, contact.getFixtureA(), contact.getFixtureB());
+        dispatch(ContactEvent.BEGIN, contact, contact.getFixtureB(), contact.getFixtureA());
     }
 
     @Override
-    public void beginContact(Contact contact) {
-        Fixture fixtureA = contact.getFixtureA();
-        Fixture fixtureB = contact.getFixtureB();
+    public void endContact(Contact contact) {
+        if ((registeredEventTypes & ContactEvent.END) == 0) return;
 
-        final var handlerA = contactHandlers.get(fixtureA.getBody().getUserData());
-        if (handlerA != null) {
-            handlerA.handleContactBegin(new FixtureContact(fixtureA, fixtureB));
-        }
+        dispatch(ContactEvent.END, contact, contact.getFixtureA(), contact.getFixtureB());
+        dispatch(ContactEvent.END, contact, contact.getFixtureB(), contact.getFixtureA());
+    }
 
-        final var handlerB = contactHandlers.get(fixtureB.getBody().getUserData());
-        if (handlerB != null) {
-            handlerB.handleContactBegin(new FixtureContact(fixtureB, fixtureA));
-        }
+    @Override
+    public void preSolve(Contact contact, Manifold oldManifold) {
+        if ((registeredEventTypes & ContactEvent.PRE_SOLVE) == 0) return;
+
+        dispatch(ContactEvent.PRE_SOLVE, contact, contact.getFixtureA(), contact.getFixtureB());
+        dispatch(ContactEvent.PRE_SOLVE, contact, contact.getFixtureB(), contact.getFixtureA());
     }
 
     @Override
-    public void endContact(Contact contact) {
-        Fixture fixtureA = contact.getFixtureA();
-        Fixture fixtureB = contact.getFixtureB();
+    public void postSolve(Contact contact, ContactImpulse impulse) {
+
+    }
 
-        final var handlerA = contactHandlers.get(fixtureA.getBody().getUserData());
-        if (handlerA != null) {
-            handlerA.handleContactEnd(new FixtureContact(fixtureA, fixtureB));
+    private void dispatch(int type, Contact contact, Fixture handledFixture, Fixture otherFixture) {
+        final var userData = (BodyUserData) handledFixture.getBody().getUserData();
+        if (userData == null || (userData.contactEventTypes & type) == 0) return;
+
+        if (!world.isLocked()) {
+            // Outside of the step, when a fixture is destroyed: delivered right away, never chained
+            newEvent(userData.contactHandler, type, handledFixture, otherFixture).deliver();
+            eventsPool.free(events.pop());
+            return;
         }
 
-        final var handlerB = contactHandlers.get(fixtureB.getBody().getUserData());
-        if (handlerB != null) {
-            handlerB.handleContactEnd(new FixtureContact(fixtureB, fixtureA));
+        if (type == ContactEvent.PRE_SOLVE) {
+            var event = findStepEvent(userData, ContactEvent.PRE_SOLVE, handledFixture, otherFixture);
+            if (event == null) {
+                event = newStepEvent(userData, type, handledFixture, otherFixture);
+            } else {
+                mergedPreSolvesCount++;
+            }
+            if ((userData.contactEventTypes & ContactEvent.MANIFOLD) != 0) {
+                event.setManifold(contact.getWorldManifold());
+            }
+        } else {
+            final var opposite = findStepEvent(userData, type == ContactEvent.BEGIN ? ContactEvent.END : ContactEvent.BEGIN, handledFixture, otherFixture);
+            if (opposite == null) {
+                newStepEvent(userData, type, handledFixture, otherFixture);
+            } else {
+                // The fixtures end up touching or not, as before the step
+                opposite.cancelled = true;
+                cancelledPairsCount++;
+            }
         }
     }
 
-    @Override
-    public void preSolve(Contact contact, Manifold oldManifold) {
-        Fixture fixtureA = contact.getFixtureA();
-        Fixture fixtureB = contact.getFixtureB();
-
-        final var handlerA = contactHandlers.get(fixtureA.getBody().getUserData());
-        if (handlerA != null) {
-            handlerA.handlePreSolve(contact, new FixtureContact(fixtureA, fixtureB));
+    /**
+     * @return the event of this type and fixtures not cancelled yet during the current step, null if none
+     */
+    private static ContactEvent findStepEvent(BodyUserData userData, int type, Fixture handledFixture, Fixture otherFixture) {
+        for (var event = userData.stepEvents; event != null; event = event.nextOfBody) {
+            if (event.matches(type, handledFixture, otherFixture)) return event;
         }
-        final var handlerB = contactHandlers.get(fixtureB.getBody().getUserData());
-        if (handlerB != null) {
-            handlerB.handlePreSolve(contact, new FixtureContact(fixtureB, fixtureA));
+        return null;
+    }
+
+    private ContactEvent newStepEvent(BodyUserData userData, int type, Fixture handledFixture, Fixture otherFixture) {
+        final var event = newEvent(userData.contactHandler, type, handledFixture, otherFixture);
+        if (userData.stepEvents == null) {
+            eventBodies.add(userData);
         }
+        event.nextOfBody = userData.stepEvents;
+        userData.stepEvents = event;
+        return event;
     }
 
-    @Override
-    public void postSolve(Contact contact, ContactImpulse impulse) {
+    private ContactEvent newEvent(ContactHandler handler, int type, Fixture handledFixture, Fixture otherFixture) {
+        final var event = eventsPool.obtain();
+        event.set(type, handler, handledFixture, otherFixture);
+        events.add(event);
+        return event;
+    }
 
+    /**
+     * @return the events delivered after the last world step
+     */
+    public int getDeliveredEventsCount() {
+        return deliveredEventsCount;
     }
 
+    /**
+     * @return the pre-solve events merged into another event of the last world step
+     */
+    public int getMergedPreSolvesCount() {
+        return deliveredMergedPreSolvesCount;
+    }
 
+    /**
+     * @return the begin and end pairs of the same fixtures cancelled during the last world step
+     */
+    public int getCancelledPairsCount() {
+        return deliveredCancelledPairsCount;
+    }
 }
-
@@ -0,0 +1,341 @@
+package fr.baldurcrew.gdx25.utils;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.Transform;
+
+import java.util.HashMap;
+
+/**
+ * Sutherland-Hodgman polygon clipper working on reusable flattened (x, y) float buffers. Not thread safe.
+ * <p>
+ * The area and centroid of the clipped polygon are computed in the same pass.
+ * Intersections of two axis-aligned rectangles are computed in closed form.
+ * Original at https://www.iforce2d.net/b2dtut/
+ */
+public class PolygonClipper {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Local shapes of the clip fixtures, read once from Box2D. Only valid for fixtures whose shape never changes.
+     * libGDX reuses the fixture objects once destroyed, but each fixture gets a new shape object: an entry is only used for the shape it was read from.
+     */
+    private final HashMap<Fixture, LocalShape> localShapesCache = new HashMap<>();
+    private final Vector2 vertex = new Vector2();
+    private float[] clipVertices = new float[INITIAL_CAPACITY * 2];
+    private float[] inputVertices = new float[INITIAL_CAPACITY * 2];
+    private float[] outputVertices = new float[INITIAL_CAPACITY * 2];
+    private int outputCount;
+    private float area;
+    private float centroidX;
+    private float centroidY;
+    private float boundsMinX;
+    private float boundsMaxX;
+
+    /**
+     * Clips a polygon by a fixture polygon.
+     *
+     * @param subject      Flattened world vertices of the polygon to clip
+     * @param subjectCount Vertex count of the polygon to clip
+     * @param clipFixture  Convex polygon fixture, with an immutable shape
+     * @return the vertex count of the intersection, 0 if empty or if the fixture is not a polygon
+     */
+    public int clip(float[] subject, int subjectCount, Fixture clipFixture) {
+        final var localShape = getLocalShape(clipFixture);
+        if (localShape.vertices.length == 0) {
+            outputCount = 0;
+            area = 0f;
+            return 0;
+        }
+
+        final Transform transform = clipFixture.getBody().getTransform();
+        if (localShape.axisAlignedBox && transform.vals[Transform.SIN] == 0f && transform.vals[Transform.COS] > 0f && isAxisAlignedBox(subject, subjectCount)) {
+            final float px = transform.vals[Transform.POS_X];
+            final float py = transform.vals[Transform.POS_Y];
+            return clipBoxes(subject, localShape.minX + px, localShape.minY + py, localShape.maxX + px, localShape.maxY + py);
+        }
+
+        final int clipCount = getWorldVertices(localShape, transform);
+        return clip(subject, subjectCount, clipVertices, clipCount);
+    }
+
+    /**
+     * Clips a polygon by a convex polygon, counter-clockwise.
+     *
+     * @return the vertex count of the intersection, 0 if empty
+     */
+    public int clip(float[] subject, int subjectCount, float[] clip, int clipCount) {
+        outputVertices = ensureCapacity(outputVertices, subjectCount * 2, 0);
+        System.arraycopy(subject, 0, outputVertices, 0, subjectCount * 2);
+        outputCount = subjectCount;
+
+        float cp1x = clip[(clipCount - 1) * 2];
+        float cp1y = clip[(clipCount - 1) * 2 + 1];
+        for (int j = 0; j < clipCount && outputCount > 0; j++) {
+            final float cp2x = clip[j * 2];
+            final float cp2y = clip[j * 2 + 1];
+
+            final float[] input = outputVertices;
+            final int inputCount = outputCount;
+            outputVertices = inputVertices;
+            inputVertices = input;
+            outputCount = 0;
+
+            float sx = input[(inputCount - 1) * 2];
+            float sy = input[(inputCount - 1) * 2 + 1];
+            boolean sInside = inside(cp1x, cp1y, cp2x, cp2y, sx, sy);
+            for (int i = 0; i < inputCount; i++) {
+                final float ex = input[i * 2];
+                final float ey = input[i * 2 + 1];
+                final boolean eInside = inside(cp1x, cp1y, cp2x, cp2y, ex, ey);
+                if (eInside != sInside) {
+                    addIntersection(cp1x, cp1y, cp2x, cp2y, sx, sy, ex, ey);
+                }
+                if (eInside) {
+                    addOutput(ex, ey);
+                }
+                sx = ex;
+                sy = ey;
+                sInside = eInside;
+            }
+            cp1x = cp2x;
+            cp1y = cp2y;
+        }
+
+        computeAreaAndCentroid();
+        return outputCount;
+    }
+
+    /**
+     * Closed-form intersection of an axis-aligned rectangle polygon with an axis-aligned rectangle.
+     */
+    private int clipBoxes(float[] subject, float clipMinX, float clipMinY, float clipMaxX, float clipMaxY) {
+        final float minX = Math.max(Math.min(subject[0], subject[4]), clipMinX);
+        final float maxX = Math.min(Math.max(subject[0], subject[4]), clipMaxX);
+        final float minY = Math.max(Math.min(subject[1], subject[5]), clipMinY);
+        final float maxY = Math.min(Math.max(subject[1], subject[5]), clipMaxY);
+        if (minX >= maxX || minY >= maxY) {
+            outputCount = 0;
+            area = 0f;
+            return 0;
+        }
+
+        outputCount = 0;
+        addOutput(minX, minY);
+        addOutput(maxX, minY);
+        addOutput(maxX, maxY);
+        addOutput(minX, maxY);
+        area = (maxX - minX) * (maxY - minY);
+        centroidX = (minX + maxX) * 0.5f;
+        centroidY = (minY + maxY) * 0.5f;
+        return outputCount;
+    }
+
+    /**
+     * @return true if the polygon has 4 vertices forming a rectangle whose edges are parallel to the axes
+     */
+    private static boolean isAxisAlignedBox(float[] vertices, int count) {
+        if (count != 4) return false;
+
+        // Edges must alternate between horizontal and vertical
+        final boolean firstEdgeHorizontal = vertices[1] == vertices[3];
+        for (int i = 0; i < 4; i++) {
+            final int next = (i + 1) % 4;
+            final boolean horizontal = vertices[i * 2 + 1] == vertices[next * 2 + 1];
+            final boolean vertical = vertices[i * 2] == vertices[next * 2];
+            final boolean shouldBeHorizontal = (i % 2 == 0) == firstEdgeHorizontal;
+            if (horizontal == vertical || horizontal != shouldBeHorizontal) return false;
+        }
+        return true;
+    }
+
+    private static boolean inside(float cp1x, float cp1y, float cp2x, float cp2y, float px, float py) {
+        return (cp2x - cp1x) * (py - cp1y) > (cp2y - cp1y) * (px - cp1x);
+    }
+
+    private void addIntersection(float cp1x, float cp1y, float cp2x, float cp2y, float sx, float sy, float ex, float ey) {
+        final float dcx = cp1x - cp2x;
+        final float dcy = cp1y - cp2y;
+        final float dpx = sx - ex;
+        final float dpy = sy - ey;
+        final float n1 = cp1x * cp2y - cp1y * cp2x;
+        final float n2 = sx * ey - sy * ex;
+        final float n3 = 1.0f / (dcx * dpy - dcy * dpx);
+        addOutput((n1 * dpx - n2 * dcx) * n3, (n1 * dpy - n2 * dcy) * n3);
+    }
+
+    private void addOutput(float x, float y) {
+        outputVertices = ensureCapacity(outputVertices, (outputCount + 1) * 2, outputCount * 2);
+        outputVertices[outputCount * 2] = x;
+        outputVertices[outputCount * 2 + 1] = y;
+        outputCount++;
+    }
+
+    private void computeAreaAndCentroid() {
+        if (outputCount < 3) {
+            area = 0f;
+            outputCount = 0;
+            return;
+        }
+
+        // Relative to the first vertex, for precision
+        final float originX = outputVertices[0];
+        final float originY = outputVertices[1];
+        float signedArea = 0f;
+        float x = 0f, y = 0f;
+        for (int i = 1; i < outputCount - 1; i++) {
+            final float x0 = outputVertices[i * 2] - originX;
+            final float y0 = outputVertices[i * 2 + 1] - originY;
+            final float x1 = outputVertices[(i + 1) * 2] - originX;
+            final float y1 = outputVertices[(i + 1) * 2 + 1] - originY;
+            final float cross = x0 * y1 - x1 * y0;
+            signedArea += cross;
+            x += (x0 + x1) * cross;
+            y += (y0 + y1) * cross;
+        }
+        signedArea *= 0.5f;
+
+        area = Math.abs(signedArea);
+        if (signedArea != 0f) {
+            centroidX = originX + x / (6f * signedArea);
+            centroidY = originY + y / (6f * signedArea);
+        } else {
+            area = 0f;
+            outputCount = 0;
+        }
+    }
+
+    /**
+     * Computes the world horizontal extent of a fixture polygon, available from {@link #getBoundsMinX()} and {@link #getBoundsMaxX()}.
+     *
+     * @return false if the fixture is not a polygon
+     */
+    public boolean computeHorizontalBounds(Fixture fixture) {
+        final var localShape = getLocalShape(fixture);
+        if (localShape.vertices.length == 0) return false;
+
+        final Transform transform = fixture.getBody().getTransform();
+        final float px = transform.vals[Transform.POS_X];
+        final float cos = transform.vals[Transform.COS];
+        final float sin = transform.vals[Transform.SIN];
+        boundsMinX = Float.MAX_VALUE;
+        boundsMaxX = -Float.MAX_VALUE;
+        for (int i = 0; i < localShape.vertices.length; i += 2) {
+            final float x = cos * localShape.vertices[i] - sin * localShape.vertices[i + 1] + px;
+            boundsMinX = Math.min(boundsMinX, x);
+            boundsMaxX = Math.max(boundsMaxX, x);
+        }
+        return true;
+    }
+
+    private LocalShape getLocalShape(Fixture fixture) {
+        final Shape shape = fixture.getShape();
+        var localShape = localShapesCache.get(fixture);
+        if (localShape == null || localShape.shape != shape) {
+            localShape = new LocalShape(shape, readLocalVertices(shape));
+            localShapesCache.put(fixture, localShape);
+        }
+        return localShape;
+    }
+
+    private int getWorldVertices(LocalShape localShape, Transform transform) {
+        final float[] localVertices = localShape.vertices;
+        final int count = localVertices.length / 2;
+        clipVertices = ensureCapacity(clipVertices, count * 2, 0);
+        final float px = transform.vals[Transform.POS_X];
+        final float py = transform.vals[Transform.POS_Y];
+        final float cos = transform.vals[Transform.COS];
+        final float sin = transform.vals[Transform.SIN];
+        for (int i = 0; i < count; i++) {
+            final float lx = localVertices[i * 2];
+            final float ly = localVertices[i * 2 + 1];
+            clipVertices[i * 2] = cos * lx - sin * ly + px;
+            clipVertices[i * 2 + 1] = sin * lx + cos * ly + py;
+        }
+        return count;
+    }
+
+    private float[] readLocalVertices(Shape shape) {
+        if (shape.getType() != Shape.Type.Polygon) return new float[0];
+
+        final var polygon = (PolygonShape) shape;
+        final var vertices = new float[polygon.getVertexCount() * 2];
+        for (int i = 0; i < polygon.getVertexCount(); i++) {
+            polygon.getVertex(i, vertex);
+            vertices[i * 2] = vertex.x;
+            vertices[i * 2 + 1] = vertex.y;
+        }
+        return vertices;
+    }
+
+    /**
+     * @param requiredLength Minimal length of the buffer
+     * @param keptLength     Length of the buffer content to keep if it has to grow
+     */
+    private static float[] ensureCapacity(float[] buffer, int requiredLength, int keptLength) {
+        if (buffer.length >= requiredLength) return buffer;
+
+        final var grown = new float[Math.max(requiredLength, buffer.length * 2)];
+        System.arraycopy(buffer, 0, grown, 0, keptLength);
+        return grown;
+    }
+
+    public float[] getVertices() {
+        return outputVertices;
+    }
+
+    public int getVertexCount() {
+        return outputCount;
+    }
+
+    public float getArea() {
+        return area;
+    }
+
+    public float getCentroidX() {
+        return centroidX;
+    }
+
+    public float getCentroidY() {
+        return centroidY;
+    }
+
+    public float getBoundsMinX() {
+        return boundsMinX;
+    }
+
+    public float getBoundsMaxX() {
+        return boundsMaxX;
+    }
+
+    private static class LocalShape {
+        /**
+         * Shape object of the fixture when the vertices were read.
+         */
+        private final Shape shape;
+        private final float[] vertices;
+        private final boolean axisAlignedBox;
+        private final float minX, minY, maxX, maxY;
+
+        private LocalShape(Shape shape, float[] vertices) {
+            this.shape = shape;
+            this.vertices = vertices;
+            this.axisAlignedBox = isAxisAlignedBox(vertices, vertices.length / 2);
+
+            float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+            for (int i = 0; i < vertices.length; i += 2) {
+                minX = Math.min(minX, vertices[i]);
+                maxX = Math.max(maxX, vertices[i]);
+                minY = Math.min(minY, vertices[i + 1]);
+                maxY = Math.max(maxY, vertices[i + 1]);
+            }
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package fr.baldurcrew.gdx25.water;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Runs independent chunks of work, in parallel when the platform has threads. Provided by the launcher: the core module is also compiled
+ * for the html target, which has neither threads nor java.util.concurrent.
+ */
+public interface ChunkRunner {
+
+    /**
+     * Runs the chunks one after the other, on the calling thread.
+     */
+    ChunkRunner SEQUENTIAL = (count, chunk) -> {
+        for (int i = 0; i < count; i++) {
+            chunk.accept(i);
+        }
+    };
+
+    /**
+     * Runs chunk.accept(i) for each i in [0, count), in any order, and returns once all of them ran. Their writes are then visible to the caller.
+     */
+    void run(int count, IntConsumer chunk);
+}
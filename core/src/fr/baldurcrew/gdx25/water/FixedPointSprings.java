@@ -0,0 +1,165 @@
+package fr.baldurcrew.gdx25.water;
+
+/**
+ * Deterministic alternative to the float springs integration, on 16.16 fixed point integers.
+ * <p>
+ * Integer additions are associative and the products are rounded explicitly, so the result is the same, bit for bit, whatever the platform,
+ * the evaluation order or the number of threads. The float results depend on all of them, and diverge between the desktop and html builds.
+ * <p>
+ * The springs stay stored as floats. The active springs are converted to fixed point before a step and back after it. Both conversions
+ * are exact for heights and velocities below 2^8 in magnitude, so the fixed point state carries over from one step to the next without
+ * loss. Anything written to the springs between two steps is rounded to fixed point at the next step.
+ */
+public class FixedPointSprings {
+
+    private static final int FRACTION_BITS = 16;
+    private static final float ONE = 1 << FRACTION_BITS;
+    private static final float TO_FLOAT = 1f / ONE;
+    private static final long HALF = 1L << (FRACTION_BITS - 1);
+
+    private final SpringStore springs;
+    private final int[] heights;
+    private final int[] velocities;
+    /**
+     * deltas[i] is the spread between spring i and spring i + 1, same as {@link SpringStore}.
+     */
+    private final int[] deltas;
+
+    private int stiffness;
+    private int dampening;
+    private int baseLevel;
+    private int spreadFactor;
+
+    public FixedPointSprings(SpringStore springs) {
+        this.springs = springs;
+        this.heights = new int[springs.size()];
+        this.velocities = new int[springs.size()];
+        this.deltas = new int[springs.size()];
+    }
+
+    /**
+     * Same parameters as {@link SpringStore#update(float, float, float)} and {@link SpringStore#propagate(int, float)}, rounded to fixed point.
+     */
+    public void setParameters(float stiffness, float dampening, float baseLevel, float spreadFactor) {
+        this.stiffness = toFixed(stiffness);
+        this.dampening = toFixed(dampening);
+        this.baseLevel = toFixed(baseLevel);
+        this.spreadFactor = toFixed(spreadFactor);
+    }
+
+    /**
+     * Single-threaded step: update, propagation passes and optional absorbing boundaries, on the active springs.
+     */
+    public void solve(int passes, boolean absorb) {
+        final int from = springs.getActiveFrom();
+        final int to = springs.getActiveTo();
+        load(from, to);
+        update(from, to);
+        for (int j = 0; j < passes; j++) {
+            computeDeltas(from, to);
+            applyDeltas(from, to);
+        }
+        if (absorb) {
+            absorb();
+        }
+        store(from, to);
+    }
+
+    /**
+     * Converts the springs [from, to) to fixed point, then updates them.
+     */
+    void loadAndUpdate(int from, int to) {
+        load(from, to);
+        update(from, to);
+    }
+
+    private void load(int from, int to) {
+        for (int i = from; i < to; i++) {
+            heights[i] = toFixed(springs.getHeight(i));
+            velocities[i] = toFixed(springs.getVelocity(i));
+        }
+    }
+
+    /**
+     * Converts the springs [from, to) back to floats.
+     */
+    void store(int from, int to) {
+        for (int i = from; i < to; i++) {
+            springs.setState(i, heights[i] * TO_FLOAT, velocities[i] * TO_FLOAT);
+        }
+    }
+
+    private void update(int from, int to) {
+        for (int i = from; i < to; i++) {
+            final int acceleration = multiply(stiffness, baseLevel - heights[i]) - multiply(dampening, velocities[i]);
+
+            // Euler, same order as the float kernel
+            velocities[i] += acceleration;
+            heights[i] += velocities[i];
+        }
+    }
+
+    /**
+     * Same as {@link SpringStore#computeDeltas(int, int, float)}.
+     */
+    void computeDeltas(int from, int to) {
+        final int end = Math.min(to, springs.getActiveTo() - 1);
+        for (int i = from; i < end; i++) {
+            deltas[i] = multiply(spreadFactor, heights[i + 1] - heights[i]);
+        }
+    }
+
+    /**
+     * Same as {@link SpringStore#applyDeltas(int, int)}, deltas[from - 1] being the halo cell.
+     */
+    void applyDeltas(int from, int to) {
+        final int first = springs.getActiveFrom();
+        final int last = springs.getActiveTo() - 1;
+        if (last <= first) return;
+
+        if (from == first) {
+            velocities[first] += deltas[first];
+            heights[first] += deltas[first];
+        }
+        final int end = Math.min(to, last);
+        for (int i = Math.max(from, first + 1); i < end; i++) {
+            final int delta = deltas[i] - deltas[i - 1];
+            velocities[i] += delta;
+            heights[i] += delta;
+        }
+        if (to == springs.getActiveTo()) {
+            velocities[last] -= deltas[last - 1];
+            heights[last] -= deltas[last - 1];
+        }
+    }
+
+    /**
+     * Same as {@link SpringStore#absorb(float)}, on the springs already converted to fixed point.
+     */
+    void absorb() {
+        final int width = springs.getAbsorbingBoundariesWidth();
+        for (int d = 0; d < width; d++) {
+            final int kept = toFixed(1f - springs.getBoundaryAbsorption(d));
+            absorb(d, kept);
+            absorb(springs.size() - 1 - d, kept);
+        }
+    }
+
+    private void absorb(int index, int kept) {
+        if (index < springs.getActiveFrom() || index >= springs.getActiveTo()) return;
+
+        velocities[index] = multiply(kept, velocities[index]);
+        heights[index] = baseLevel + multiply(kept, heights[index] - baseLevel);
+    }
+
+    /**
+     * Product rounded to the nearest, ties towards positive infinity.
+     */
+    private static int multiply(int a, int b) {
+        return (int) (((long) a * b + HALF) >> FRACTION_BITS);
+    }
+
+    private static int toFixed(float value) {
+        return Math.round(value * ONE);
+    }
+}
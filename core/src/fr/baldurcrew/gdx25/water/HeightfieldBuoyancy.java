@@ -0,0 +1,86 @@
+package fr.baldurcrew.gdx25.water;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import fr.baldurcrew.gdx25.utils.PolygonClipper;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Buoyancy computed directly from the springs heightfield, without any Box2D water fixture nor contact.
+ * <p>
+ * Each non-sensor fixture of the registered bodies is clipped against the water polygon under the springs it spans horizontally.
+ * The water surface is the polyline joining the springs, plus the base swell.
+ */
+public class HeightfieldBuoyancy {
+
+    private final SpringStore springs;
+    private final int fromIndex;
+    private final int toIndex;
+    private final PolygonClipper clipper;
+    private final SubmergedPolygonCache submergedPolygons;
+    private final ArrayList<Body> bodies = new ArrayList<>();
+    private final float[] waterPolygon;
+
+    /**
+     * @param springs           Springs simulating the water surface
+     * @param fromIndex         Index of the first spring where buoyancy is simulated
+     * @param toIndex           Index (exclusive) of the last spring where buoyancy is simulated
+     * @param clipper           Clipper used to compute the horizontal extent of the fixtures
+     * @param submergedPolygons Cache of the immersed polygons
+     */
+    public HeightfieldBuoyancy(SpringStore springs, int fromIndex, int toIndex, PolygonClipper clipper, SubmergedPolygonCache submergedPolygons) {
+        this.springs = springs;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.clipper = clipper;
+        this.submergedPolygons = submergedPolygons;
+        this.waterPolygon = new float[(toIndex - fromIndex + 2) * 2];
+    }
+
+    public void addBody(Body body) {
+        bodies.add(body);
+    }
+
+    /**
+     * @param onImmersed Called for each immersed fixture, with the intersection available from the submerged polygons cache
+     */
+    public void update(Consumer<Body> onImmersed) {
+        for (int b = 0; b < bodies.size(); b++) {
+            final var body = bodies.get(b);
+            final var fixtures = body.getFixtureList();
+            for (int f = 0; f < fixtures.size; f++) {
+                final Fixture fixture = fixtures.get(f);
+                if (fixture.isSensor() || !clipper.computeHorizontalBounds(fixture)) continue;
+
+                final int first = Math.max(fromIndex, springs.indexAt(clipper.getBoundsMinX()));
+                final int last = Math.min(toIndex - 1, springs.indexAt(clipper.getBoundsMaxX()) + 1);
+                if (last <= first) continue;
+
+                final int vertexCount = buildWaterPolygon(first, last);
+                if (submergedPolygons.clip(this, waterPolygon, vertexCount, fixture) > 0) {
+                    onImmersed.accept(body);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counter-clockwise polygon from the bottom of the water to the springs surface, between the springs first and last (inclusive).
+     *
+     * @return the vertex count
+     */
+    private int buildWaterPolygon(int first, int last) {
+        int v = 0;
+        waterPolygon[v++] = springs.getX(first);
+        waterPolygon[v++] = 0f;
+        waterPolygon[v++] = springs.getX(last);
+        waterPolygon[v++] = 0f;
+        for (int i = last; i >= first; i--) {
+            waterPolygon[v++] = springs.getX(i);
+            waterPolygon[v++] = springs.getSurfaceHeight(i);
+        }
+        return v / 2;
+    }
+}
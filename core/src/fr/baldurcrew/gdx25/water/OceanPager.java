@@ -0,0 +1,187 @@
+package fr.baldurcrew.gdx25.water;
+
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Pages the springs along an unbounded ocean, by chunks of springs.
+ * <p>
+ * The springs are a window of chunks, which scrolls by whole chunks to follow a position. Chunks leaving the window are frozen in a compact form
+ * (quantized heights and velocities), or dropped if at rest, and thawed when they enter the window again. At most frozenCapacity chunks are kept
+ * frozen, the farthest from the window are dropped first, so memory stays flat however far the window goes.
+ * <p>
+ * Chunks inside the window share the springs arrays, waves cross their seams like any other spring. A thawed chunk was frozen at another time than
+ * its new neighbour: its springs closest to the neighbour are blended towards it, to hide the seam.
+ */
+public class OceanPager {
+
+    /**
+     * Springs of a thawed chunk blended towards its neighbour.
+     */
+    private static final int SEAM_SPRINGS = 4;
+
+    private final SpringStore springs;
+    private final int chunkSprings;
+    private final int windowChunks;
+    private final int frozenCapacity;
+    /**
+     * Frozen chunks by absolute chunk index.
+     */
+    private final IntMap<FrozenChunk> frozenChunks = new IntMap<>();
+    private final Pool<FrozenChunk> frozenChunksPool;
+
+    /**
+     * @param springs        Springs window, its size must be a multiple of chunkSprings
+     * @param chunkSprings   Springs per chunk
+     * @param frozenCapacity Maximum frozen chunks kept outside of the window
+     */
+    public OceanPager(SpringStore springs, int chunkSprings, int frozenCapacity) {
+        if (springs.size() % chunkSprings != 0) {
+            throw new IllegalArgumentException("Incorrect chunks, the springs count is not a multiple of the chunk springs count");
+        }
+        this.springs = springs;
+        this.chunkSprings = chunkSprings;
+        this.windowChunks = springs.size() / chunkSprings;
+        this.frozenCapacity = frozenCapacity;
+        this.frozenChunksPool = new Pool<>() {
+            @Override
+            protected FrozenChunk newObject() {
+                return new FrozenChunk(chunkSprings);
+            }
+        };
+    }
+
+    /**
+     * Scrolls the window by whole chunks, once its center is at least a chunk away from centerX.
+     *
+     * @param restEpsilon Chunks whose springs move less than this are dropped instead of frozen
+     * @return true if the window scrolled
+     */
+    public boolean scrollTo(float centerX, float restEpsilon, float baseLevel) {
+        final float windowCenterX = (springs.getX(0) + springs.getX(springs.size() - 1)) / 2f;
+        final int chunksDelta = (int) ((centerX - windowCenterX) / (chunkSprings * springs.getSpacing()));
+        if (chunksDelta == 0) return false;
+
+        final int firstChunk = Math.floorDiv(springs.getOrigin(), chunkSprings);
+        final int leavingFrom = chunksDelta > 0 ? 0 : Math.max(0, windowChunks + chunksDelta);
+        final int leavingTo = chunksDelta > 0 ? Math.min(windowChunks, chunksDelta) : windowChunks;
+        for (int c = leavingFrom; c < leavingTo; c++) {
+            freeze(firstChunk + c, c * chunkSprings, restEpsilon, baseLevel);
+        }
+
+        springs.scroll(chunksDelta * chunkSprings, baseLevel);
+
+        final int newFirstChunk = firstChunk + chunksDelta;
+        final int enteringFrom = chunksDelta > 0 ? Math.max(0, windowChunks - chunksDelta) : 0;
+        final int enteringTo = chunksDelta > 0 ? windowChunks : Math.min(windowChunks, -chunksDelta);
+        for (int c = enteringFrom; c < enteringTo; c++) {
+            thaw(newFirstChunk + c, c * chunkSprings, baseLevel);
+        }
+        if (Math.abs(chunksDelta) < windowChunks) {
+            if (chunksDelta > 0) {
+                blendSeam(enteringFrom * chunkSprings - 1, 1);
+            } else {
+                blendSeam(enteringTo * chunkSprings, -1);
+            }
+        }
+
+        dropFarthestFrozenChunks(newFirstChunk + windowChunks / 2);
+        return true;
+    }
+
+    private void freeze(int chunk, int from, float restEpsilon, float baseLevel) {
+        final var existing = frozenChunks.remove(chunk);
+        if (existing != null) {
+            frozenChunksPool.free(existing);
+        }
+        if (springs.isAtRest(from, from + chunkSprings, restEpsilon, baseLevel)) return;
+
+        final var frozenChunk = frozenChunksPool.obtain();
+        float maxHeight = 0f;
+        float maxVelocity = 0f;
+        for (int i = 0; i < chunkSprings; i++) {
+            maxHeight = Math.max(maxHeight, Math.abs(springs.getHeight(from + i) - baseLevel));
+            maxVelocity = Math.max(maxVelocity, Math.abs(springs.getVelocity(from + i)));
+        }
+        frozenChunk.heightsScale = maxHeight / Short.MAX_VALUE;
+        frozenChunk.velocitiesScale = maxVelocity / Short.MAX_VALUE;
+        for (int i = 0; i < chunkSprings; i++) {
+            frozenChunk.heights[i] = quantize(springs.getHeight(from + i) - baseLevel, frozenChunk.heightsScale);
+            frozenChunk.velocities[i] = quantize(springs.getVelocity(from + i), frozenChunk.velocitiesScale);
+        }
+        frozenChunks.put(chunk, frozenChunk);
+    }
+
+    private static short quantize(float value, float scale) {
+        return scale > 0f ? (short) Math.round(value / scale) : 0;
+    }
+
+    /**
+     * Springs of a chunk without frozen state stay at rest.
+     */
+    private void thaw(int chunk, int from, float baseLevel) {
+        final var frozenChunk = frozenChunks.remove(chunk);
+        if (frozenChunk == null) return;
+
+        for (int i = 0; i < chunkSprings; i++) {
+            springs.setState(from + i, baseLevel + frozenChunk.heights[i] * frozenChunk.heightsScale, frozenChunk.velocities[i] * frozenChunk.velocitiesScale);
+        }
+        frozenChunksPool.free(frozenChunk);
+    }
+
+    /**
+     * @param neighbour Index of the last spring before the seam
+     * @param direction 1 if the thawed chunk is after the neighbour, -1 if it is before
+     */
+    private void blendSeam(int neighbour, int direction) {
+        final float neighbourHeight = springs.getHeight(neighbour);
+        final float neighbourVelocity = springs.getVelocity(neighbour);
+        for (int j = 1; j <= SEAM_SPRINGS; j++) {
+            final int index = neighbour + j * direction;
+            final float weight = (float) (SEAM_SPRINGS + 1 - j) / (SEAM_SPRINGS + 1);
+            final float height = springs.getHeight(index);
+            final float velocity = springs.getVelocity(index);
+            springs.setState(index, height + (neighbourHeight - height) * weight, velocity + (neighbourVelocity - velocity) * weight);
+        }
+    }
+
+    private void dropFarthestFrozenChunks(int centerChunk) {
+        while (frozenChunks.size > frozenCapacity) {
+            int farthestChunk = 0;
+            int farthestDistance = -1;
+            final var chunks = frozenChunks.keys();
+            while (chunks.hasNext) {
+                final int chunk = chunks.next();
+                final int distance = Math.abs(chunk - centerChunk);
+                if (distance > farthestDistance) {
+                    farthestDistance = distance;
+                    farthestChunk = chunk;
+                }
+            }
+            frozenChunksPool.free(frozenChunks.remove(farthestChunk));
+        }
+    }
+
+    public int getFrozenChunksCount() {
+        return frozenChunks.size;
+    }
+
+    private static class FrozenChunk implements Pool.Poolable {
+        /// Heights from the base level
+        private final short[] heights;
+        private final short[] velocities;
+        private float heightsScale;
+        private float velocitiesScale;
+
+        private FrozenChunk(int springsCount) {
+            this.heights = new short[springsCount];
+            this.velocities = new short[springsCount];
+        }
+
+        @Override
+        public void reset() {
+            heightsScale = 0f;
+            velocitiesScale = 0f;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package fr.baldurcrew.gdx25.water;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Updates and propagates the springs by chunks, run in parallel by a {@link ChunkRunner}, for very large spring counts.
+ * <p>
+ * The springs are split in fixed size chunks. Each propagation pass runs in two phases, synchronised on all chunks: the deltas computation,
+ * then their application. The only value a chunk reads from its left neighbour is the delta at their boundary (its halo cell), so the result
+ * is the same, bit for bit, as the single-threaded {@link SpringStore#propagate(int, float)}, whatever the order the chunks run in.
+ * Chunks are clipped to the active springs.
+ * <p>
+ * Also solves the {@link FixedPointSprings} the same way, with an extra phase converting the chunks back to floats.
+ */
+public class ParallelSpringsSolver {
+
+    private final ChunkRunner runner;
+    private final SpringStore springs;
+    private final int chunkSize;
+    private final int chunksCount;
+    /**
+     * Below this active spring count, the springs are left to the single-threaded update.
+     */
+    private final int threshold;
+    private final IntConsumer chunkTask = this::runChunk;
+
+    private Phase phase;
+    private float stiffness;
+    private float dampening;
+    private float baseLevel;
+    private int passes;
+    private float spreadFactor;
+    /**
+     * Fixed point springs solved instead of the float ones, null for the float ones.
+     */
+    private FixedPointSprings fixedPointSprings;
+    private boolean absorb;
+
+    /**
+     * @param runner    Runner of the chunks of each phase
+     * @param springs   Springs to solve
+     * @param chunkSize Springs per chunk
+     * @param threshold Minimal spring count for the parallel solver to be used
+     */
+    public ParallelSpringsSolver(ChunkRunner runner, SpringStore springs, int chunkSize, int threshold) {
+        this.runner = runner;
+        this.springs = springs;
+        this.chunkSize = chunkSize;
+        this.chunksCount = (springs.size() + chunkSize - 1) / chunkSize;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Same parameters as {@link SpringStore#update(float, float, float)} followed by {@link SpringStore#propagate(int, float)}.
+     *
+     * @return false if there are not enough springs to use the parallel solver, in which case nothing was updated
+     */
+    public boolean solve(float stiffness, float dampening, float baseLevel, int passes, float spreadFactor) {
+        if (springs.getActiveTo() - springs.getActiveFrom() < Math.max(2, threshold)) return false;
+
+        this.stiffness = stiffness;
+        this.dampening = dampening;
+        this.baseLevel = baseLevel;
+        this.passes = passes;
+        this.spreadFactor = spreadFactor;
+        this.fixedPointSprings = null;
+
+        solve();
+        return true;
+    }
+
+    /**
+     * Same as {@link FixedPointSprings#solve(int, boolean)}, with the parameters already set on the fixed point springs. The result is the
+     * same, bit for bit, as the single-threaded one.
+     *
+     * @return false if there are not enough springs to use the parallel solver, in which case nothing was updated
+     */
+    public boolean solve(FixedPointSprings fixedPointSprings, int passes, boolean absorb) {
+        if (springs.getActiveTo() - springs.getActiveFrom() < Math.max(2, threshold)) return false;
+
+        this.fixedPointSprings = fixedPointSprings;
+        this.passes = passes;
+        this.absorb = absorb;
+
+        solve();
+        return true;
+    }
+
+    private void solve() {
+        runPhase(Phase.UPDATE);
+        for (int j = 0; j < passes; j++) {
+            runPhase(Phase.COMPUTE_DELTAS);
+            runPhase(Phase.APPLY_DELTAS);
+        }
+        if (fixedPointSprings != null) {
+            // Only the few boundary springs
+            if (absorb) {
+                fixedPointSprings.absorb();
+            }
+            runPhase(Phase.STORE);
+        }
+    }
+
+    private void runPhase(Phase phase) {
+        this.phase = phase;
+        runner.run(chunksCount, chunkTask);
+    }
+
+    private void runChunk(int chunk) {
+        final int clippedFrom = Math.max(chunk * chunkSize, springs.getActiveFrom());
+        final int clippedTo = Math.min(Math.min((chunk + 1) * chunkSize, springs.size()), springs.getActiveTo());
+        if (clippedFrom >= clippedTo) return;
+
+        if (fixedPointSprings != null) {
+            switch (phase) {
+                case UPDATE -> fixedPointSprings.loadAndUpdate(clippedFrom, clippedTo);
+                case COMPUTE_DELTAS -> fixedPointSprings.computeDeltas(clippedFrom, clippedTo);
+                case APPLY_DELTAS -> fixedPointSprings.applyDeltas(clippedFrom, clippedTo);
+                case STORE -> fixedPointSprings.store(clippedFrom, clippedTo);
+            }
+            return;
+        }
+        switch (phase) {
+            case UPDATE -> springs.update(clippedFrom, clippedTo, stiffness, dampening, baseLevel);
+            case COMPUTE_DELTAS -> springs.computeDeltas(clippedFrom, clippedTo, spreadFactor);
+            case APPLY_DELTAS -> springs.applyDeltas(clippedFrom, clippedTo);
+        }
+    }
+
+    private enum Phase {
+        UPDATE, COMPUTE_DELTAS, APPLY_DELTAS, STORE
+    }
+}
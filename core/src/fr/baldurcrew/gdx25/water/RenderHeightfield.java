@@ -0,0 +1,110 @@
+package fr.baldurcrew.gdx25.water;
+
+/**
+ * Fine heightfield of the water surface, upsampled from the springs with Catmull-Rom splines. Only used for rendering, the physics runs on the
+ * springs. A fine sample lies on each spring, and each gap between two springs is subdivided.
+ */
+public class RenderHeightfield {
+
+    private final int springsCount;
+    private final int subdivisions;
+    private final int count;
+    private final float sampleSpacing;
+    private final float[] heights;
+    /**
+     * Catmull-Rom weights of the 4 springs around each subdivision of a gap.
+     */
+    private final float[] weights;
+
+    private float fromX;
+    private int changedFrom;
+    private int changedTo;
+
+    /**
+     * @param springsCount   How many springs simulate the water surface
+     * @param springsSpacing Horizontal distance between two springs
+     * @param subdivisions   Fine samples per gap between two springs, 1 to render the springs as is
+     */
+    public RenderHeightfield(int springsCount, float springsSpacing, int subdivisions) {
+        this.springsCount = springsCount;
+        this.subdivisions = Math.max(1, subdivisions);
+        this.count = (springsCount - 1) * this.subdivisions + 1;
+        this.sampleSpacing = springsSpacing / this.subdivisions;
+        this.heights = new float[count];
+        this.weights = new float[this.subdivisions * 4];
+
+        for (int s = 0; s < this.subdivisions; s++) {
+            final float t = (float) s / this.subdivisions;
+            final float t2 = t * t;
+            final float t3 = t2 * t;
+            weights[s * 4] = 0.5f * (-t3 + 2f * t2 - t);
+            weights[s * 4 + 1] = 0.5f * (3f * t3 - 5f * t2 + 2f);
+            weights[s * 4 + 2] = 0.5f * (-3f * t3 + 4f * t2 + t);
+            weights[s * 4 + 3] = 0.5f * (t3 - t2);
+        }
+    }
+
+    /**
+     * Upsamples the fine samples depending on the springs [springsFrom, springsTo). The updated samples are then available from
+     * {@link #getChangedFrom()} and {@link #getChangedTo()}.
+     */
+    public void upsample(SpringsSnapshot springs, int springsFrom, int springsTo) {
+        fromX = springs.getX(0);
+        if (springsFrom >= springsTo) {
+            changedFrom = 0;
+            changedTo = 0;
+            return;
+        }
+
+        final int last = springsCount - 1;
+        // The gap between the springs i and i + 1 depends on the springs i - 1 to i + 2
+        final int gapsFrom = Math.max(0, springsFrom - 2);
+        final int gapsTo = Math.min(last, springsTo + 1);
+        for (int i = gapsFrom; i < gapsTo; i++) {
+            final float h0 = springs.getHeight(Math.max(0, i - 1));
+            final float h1 = springs.getHeight(i);
+            final float h2 = springs.getHeight(i + 1);
+            final float h3 = springs.getHeight(Math.min(last, i + 2));
+            for (int s = 0; s < subdivisions; s++) {
+                final int w = s * 4;
+                heights[i * subdivisions + s] = weights[w] * h0 + weights[w + 1] * h1 + weights[w + 2] * h2 + weights[w + 3] * h3;
+            }
+        }
+
+        changedFrom = gapsFrom * subdivisions;
+        changedTo = gapsTo * subdivisions;
+        if (gapsTo == last) {
+            heights[count - 1] = springs.getHeight(last);
+            changedTo = count;
+        }
+    }
+
+    /**
+     * @return the index of the first fine sample updated by the last upsampling
+     */
+    public int getChangedFrom() {
+        return changedFrom;
+    }
+
+    /**
+     * @return the index (exclusive) of the last fine sample updated by the last upsampling
+     */
+    public int getChangedTo() {
+        return changedTo;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Follows the springs when they scroll.
+     */
+    public float getX(int index) {
+        return fromX + index * sampleSpacing;
+    }
+
+    public float getHeight(int index) {
+        return heights[index];
+    }
+}
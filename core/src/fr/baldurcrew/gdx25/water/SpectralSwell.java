@@ -0,0 +1,156 @@
+package fr.baldurcrew.gdx25.water;
+
+import com.badlogic.gdx.math.MathUtils;
+import fr.baldurcrew.gdx25.Constants;
+
+import java.util.Random;
+
+/**
+ * Base swell of the water surface, from a sum of sines spectrum, on top of the springs dynamics.
+ * <p>
+ * The spectrum has two bands, a long swell and a short chop, of a few components each. The swell is not stored in the springs: its components
+ * are evaluated where the surface height is read, by the water shaders (as uniforms), {@link SpringStore#sampleSurface} and the buoyancy
+ * polygons. The springs thus never change because of the swell, and can sleep, keep their fixtures and their rendered mesh while it moves.
+ * <p>
+ * This deliberately departs from a lookup table precomputed at level start: the few components are cheaper to evaluate at the handful of
+ * positions read each step than a table over the whole window, they follow the amplitudes as the difficulty changes them, and they stay
+ * continuous when the window scrolls since they are taken at the world position.
+ */
+public class SpectralSwell {
+
+    private static final float[] SWELL_WAVELENGTHS = {24f, 15f, 10f};
+    private static final float[] CHOP_WAVELENGTHS = {5f, 3.5f, 2.4f, 1.7f};
+    static final int COMPONENTS_COUNT = SWELL_WAVELENGTHS.length + CHOP_WAVELENGTHS.length;
+    /**
+     * Amplitude, wave number and phase of each component, the layout of the shaders swell uniforms.
+     */
+    static final int PACKED_COMPONENT_FLOATS = 3;
+
+    private final float[] unitAmplitudes = new float[COMPONENTS_COUNT];
+    /**
+     * Radians per world unit.
+     */
+    private final float[] waveNumbers = new float[COMPONENTS_COUNT];
+    /**
+     * Radians per second.
+     */
+    private final double[] angularFrequencies = new double[COMPONENTS_COUNT];
+    private final double[] initialPhases = new double[COMPONENTS_COUNT];
+    /**
+     * Components of the current step, packed.
+     */
+    private final float[] components = new float[COMPONENTS_COUNT * PACKED_COMPONENT_FLOATS];
+
+    /**
+     * Sum of the current amplitudes, the swell never goes higher nor lower.
+     */
+    private float maxHeight;
+    private long step;
+
+    /**
+     * @param seed Seed of the waves phases
+     */
+    public SpectralSwell(long seed) {
+        final var random = new Random(seed);
+        initBand(0, SWELL_WAVELENGTHS, random);
+        initBand(SWELL_WAVELENGTHS.length, CHOP_WAVELENGTHS, random);
+    }
+
+    /**
+     * Waves travel towards +X, their speed follows the deep water dispersion. Amplitudes grow with the wavelength, and are normalized so that the
+     * heights of the band have a unit root mean square.
+     */
+    private void initBand(int firstComponent, float[] wavelengths, Random random) {
+        final float gravity = Math.abs(Constants.GRAVITY_VALUE);
+
+        float amplitudesSquaredSum = 0f;
+        for (float wavelength : wavelengths) {
+            amplitudesSquaredSum += wavelength;
+        }
+        // The mean square of a sine is half its squared amplitude
+        final float normalization = (float) Math.sqrt(2f / amplitudesSquaredSum);
+
+        for (int w = 0; w < wavelengths.length; w++) {
+            final int c = firstComponent + w;
+            final float waveNumber = MathUtils.PI2 / wavelengths[w];
+            unitAmplitudes[c] = (float) Math.sqrt(wavelengths[w]) * normalization;
+            waveNumbers[c] = waveNumber;
+            angularFrequencies[c] = Math.sqrt(gravity * waveNumber);
+            initialPhases[c] = random.nextFloat() * MathUtils.PI2;
+        }
+    }
+
+    /**
+     * Moves the swell to the next step.
+     *
+     * @param swellAmplitude Root mean square height of the long swell
+     * @param chopAmplitude  Root mean square height of the short chop
+     */
+    public void advance(float swellAmplitude, float chopAmplitude) {
+        step++;
+        final double time = step * (double) Constants.TIME_STEP;
+        maxHeight = 0f;
+        for (int c = 0; c < COMPONENTS_COUNT; c++) {
+            final float amplitude = (c < SWELL_WAVELENGTHS.length ? swellAmplitude : chopAmplitude) * unitAmplitudes[c];
+            // Wrapped in double, so that the float phase keeps its precision however long the level lasts
+            final double phase = (initialPhases[c] - angularFrequencies[c] * time) % MathUtils.PI2;
+
+            components[c * PACKED_COMPONENT_FLOATS] = amplitude;
+            components[c * PACKED_COMPONENT_FLOATS + 1] = waveNumbers[c];
+            components[c * PACKED_COMPONENT_FLOATS + 2] = (float) phase;
+            maxHeight += Math.abs(amplitude);
+        }
+    }
+
+    /**
+     * @return the swell height at a world position
+     */
+    public float heightAt(float x) {
+        return heightAt(components, x);
+    }
+
+    /**
+     * @return the swell slope (dy/dx) at a world position
+     */
+    public float slopeAt(float x) {
+        if (maxHeight == 0f) return 0f;
+
+        float slope = 0f;
+        for (int c = 0; c < COMPONENTS_COUNT; c++) {
+            final int p = c * PACKED_COMPONENT_FLOATS;
+            slope += components[p] * components[p + 1] * (float) Math.cos(components[p + 1] * x + components[p + 2]);
+        }
+        return slope;
+    }
+
+    /**
+     * @return the largest height the swell can add to or remove from the springs, 0 when disabled
+     */
+    public float getMaxHeight() {
+        return maxHeight;
+    }
+
+    /**
+     * @return the components of the current step, {@link #PACKED_COMPONENT_FLOATS} floats each
+     */
+    float[] getComponents() {
+        return components;
+    }
+
+    /**
+     * Same sum as the water shaders.
+     *
+     * @param components Packed components, see {@link #getComponents()}
+     * @return the swell height at a world position
+     */
+    static float heightAt(float[] components, float x) {
+        float height = 0f;
+        for (int c = 0; c < COMPONENTS_COUNT; c++) {
+            final int p = c * PACKED_COMPONENT_FLOATS;
+            if (components[p] == 0f) continue;
+
+            height += components[p] * (float) Math.sin(components[p + 1] * x + components[p + 2]);
+        }
+        return height;
+    }
+}
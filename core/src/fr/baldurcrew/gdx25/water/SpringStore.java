@@ -0,0 +1,479 @@
+package fr.baldurcrew.gdx25.water;
+
+/**
+ * Springs simulating the water surface, stored as contiguous primitive arrays (structure of arrays). Fixed size during execution.
+ * <p>
+ * Only the springs of the active range are updated and propagated, the others are at rest. The range has both ends fixed, like the whole springs.
+ * <p>
+ * The springs are a window over an unbounded line of springs, which can scroll along X by whole springs.
+ */
+public class SpringStore {
+
+    /**
+     * Springs at rest kept on each side of the moving springs in the active range, so that waves can reach them before the range grows.
+     */
+    private static final int ACTIVE_MARGIN = 16;
+
+    private final int count;
+    /// Horizontal position of the spring of absolute index 0
+    private final float fromX;
+    private final float spacing;
+    /// Horizontal positions
+    private final float[] x;
+    private final float[] heights;
+    private final float[] velocities;
+    /**
+     * Scratch buffer reused by every propagation pass. deltas[i] is the spread between spring i and spring i + 1.
+     * Also holds the eliminated upper diagonal of the implicit propagation.
+     */
+    private final float[] deltas;
+    /**
+     * Scratch buffer of the implicit propagation, the heights before the solve.
+     */
+    private final float[] previousHeights;
+
+    /**
+     * Arithmetic of the explicit update and propagation.
+     */
+    private SpringsKernel kernel = SpringsKernel.SCALAR;
+    /**
+     * Base swell of the surface, outside of the springs dynamics. Null without swell.
+     */
+    private SpectralSwell swell;
+    /**
+     * Damping of each spring of the absorbing boundaries, from the outermost spring inwards.
+     */
+    private float[] boundaryAbsorption = new float[0];
+
+    /**
+     * Absolute index of the first spring of the window.
+     */
+    private int origin;
+    private int activeFrom;
+    /// Exclusive
+    private int activeTo;
+
+    public SpringStore(float fromX, float springsSpacing, int springsCount, float initialHeight) {
+        this.count = springsCount;
+        this.fromX = fromX;
+        this.spacing = springsSpacing;
+        this.x = new float[springsCount];
+        this.heights = new float[springsCount];
+        this.velocities = new float[springsCount];
+        this.deltas = new float[springsCount];
+        this.previousHeights = new float[springsCount];
+
+        for (int i = 0; i < springsCount; i++) {
+            x[i] = fromX + i * springsSpacing;
+            heights[i] = initialHeight;
+        }
+        wakeAll();
+    }
+
+    public void update(float stiffness, float dampening, float baseLevel) {
+        update(activeFrom, activeTo, stiffness, dampening, baseLevel);
+    }
+
+    /**
+     * Updates the springs [from, to) only.
+     */
+    void update(int from, int to, float stiffness, float dampening, float baseLevel) {
+        kernel.update(heights, velocities, from, to, stiffness, dampening, baseLevel);
+    }
+
+    /**
+     * Spreads the height differences between neighbouring springs, to both their velocities and heights.
+     */
+    public void propagate(int passes, float spreadFactor) {
+        final int first = activeFrom;
+        final int last = activeTo - 1;
+        if (last <= first) return;
+
+        for (int j = 0; j < passes; j++) {
+            // All the deltas of a pass are computed from the same heights
+            kernel.computeDeltas(heights, deltas, first, last, spreadFactor);
+
+            velocities[first] += deltas[first];
+            heights[first] += deltas[first];
+            kernel.applyDeltas(heights, velocities, deltas, first + 1, last);
+            velocities[last] -= deltas[last - 1];
+            heights[last] -= deltas[last - 1];
+        }
+    }
+
+    /**
+     * @param kernel Arithmetic of {@link #update(float, float, float)} and {@link #propagate(int, float)}, also used by the parallel solver
+     */
+    public void setKernel(SpringsKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    /**
+     * Implicit alternative to {@link #propagate(int, float)}, in a single tridiagonal solve (Thomas algorithm) instead of the passes.
+     * <p>
+     * Solves (I - D * L) h' = h for the heights, with L the springs Laplacian (one neighbour at both ends) and D = passes * spreadFactor, the
+     * total spread of the explicit passes. Like the explicit passes, each spring's height change is also added to its velocity. Stable for
+     * any spread factor, and the total height is conserved.
+     */
+    public void propagateImplicit(int passes, float spreadFactor) {
+        final int first = activeFrom;
+        final int last = activeTo - 1;
+        if (last <= first) return;
+
+        final float spread = passes * spreadFactor;
+        final float[] upper = deltas;
+
+        System.arraycopy(heights, first, previousHeights, first, last + 1 - first);
+
+        // Forward elimination
+        float scale = 1f / (1f + spread);
+        upper[first] = -spread * scale;
+        heights[first] *= scale;
+        for (int i = first + 1; i <= last; i++) {
+            final float diagonal = i == last ? 1f + spread : 1f + 2f * spread;
+            scale = 1f / (diagonal + spread * upper[i - 1]);
+            upper[i] = -spread * scale;
+            heights[i] = (heights[i] + spread * heights[i - 1]) * scale;
+        }
+
+        // Back substitution
+        for (int i = last - 1; i >= first; i--) {
+            heights[i] -= upper[i] * heights[i + 1];
+        }
+
+        for (int i = first; i <= last; i++) {
+            velocities[i] += heights[i] - previousHeights[i];
+        }
+    }
+
+    /**
+     * Shapes the absorbing boundaries: the damping grows quadratically over the width springs closest to each end, up to strength at the ends.
+     *
+     * @param width    Springs of each boundary, 0 to disable the boundaries
+     * @param strength Fraction of the height deviation and velocity removed at the outermost springs, at each absorption
+     */
+    public void setAbsorbingBoundaries(int width, float strength) {
+        boundaryAbsorption = new float[Math.min(width, count / 2)];
+        for (int d = 0; d < boundaryAbsorption.length; d++) {
+            final float depth = (float) (boundaryAbsorption.length - d) / boundaryAbsorption.length;
+            boundaryAbsorption[d] = strength * depth * depth;
+        }
+    }
+
+    /**
+     * Damps the waves reaching the absorbing boundaries, instead of reflecting them on the fixed ends.
+     */
+    public void absorb(float baseLevel) {
+        for (int d = 0; d < boundaryAbsorption.length; d++) {
+            final float kept = 1f - boundaryAbsorption[d];
+            absorb(d, kept, baseLevel);
+            absorb(count - 1 - d, kept, baseLevel);
+        }
+    }
+
+    private void absorb(int index, float kept, float baseLevel) {
+        if (index < activeFrom || index >= activeTo) return;
+
+        velocities[index] *= kept;
+        heights[index] = baseLevel + (heights[index] - baseLevel) * kept;
+    }
+
+    /**
+     * @param depth Distance of the spring to the closest end, lower than {@link #getAbsorbingBoundariesWidth()}
+     * @return the fraction of the height deviation and velocity removed at each absorption
+     */
+    float getBoundaryAbsorption(int depth) {
+        return boundaryAbsorption[depth];
+    }
+
+    /**
+     * @return the springs count of each absorbing boundary
+     */
+    public int getAbsorbingBoundariesWidth() {
+        return boundaryAbsorption.length;
+    }
+
+    /**
+     * First half of a propagation pass, on the active springs [from, to): computes their deltas with their right neighbour.
+     */
+    void computeDeltas(int from, int to, float spreadFactor) {
+        kernel.computeDeltas(heights, deltas, from, Math.min(to, activeTo - 1), spreadFactor);
+    }
+
+    /**
+     * Second half of a propagation pass, on the active springs [from, to): applies the deltas computed by {@link #computeDeltas(int, int, float)}.
+     * deltas[from - 1] is read as a halo cell and must have been computed beforehand.
+     */
+    void applyDeltas(int from, int to) {
+        final int first = activeFrom;
+        final int last = activeTo - 1;
+        if (last <= first) return;
+
+        if (from == first) {
+            velocities[first] += deltas[first];
+            heights[first] += deltas[first];
+        }
+        kernel.applyDeltas(heights, velocities, deltas, Math.max(from, first + 1), Math.min(to, last));
+        if (to == activeTo) {
+            velocities[last] -= deltas[last - 1];
+            heights[last] -= deltas[last - 1];
+        }
+    }
+
+    /**
+     * Copies the heights, velocities and active range of springs of the same size.
+     */
+    public void copyFrom(SpringStore other) {
+        System.arraycopy(other.heights, 0, heights, 0, count);
+        System.arraycopy(other.velocities, 0, velocities, 0, count);
+        activeFrom = other.activeFrom;
+        activeTo = other.activeTo;
+    }
+
+    /**
+     * Fits the active range to the springs that still move more than epsilon, plus the margin. Springs leaving the range are put at rest.
+     */
+    public void updateActiveRange(float epsilon, float baseLevel) {
+        int firstMoving = activeFrom;
+        while (firstMoving < activeTo && isAtRest(firstMoving, epsilon, baseLevel)) {
+            firstMoving++;
+        }
+        int lastMoving = activeTo - 1;
+        while (lastMoving >= firstMoving && isAtRest(lastMoving, epsilon, baseLevel)) {
+            lastMoving--;
+        }
+
+        if (firstMoving > lastMoving) {
+            putAtRest(activeFrom, activeTo, baseLevel);
+            activeFrom = 0;
+            activeTo = 0;
+            return;
+        }
+
+        final int from = Math.max(0, firstMoving - ACTIVE_MARGIN);
+        final int to = Math.min(count, lastMoving + 1 + ACTIVE_MARGIN);
+        putAtRest(activeFrom, Math.min(from, activeTo), baseLevel);
+        putAtRest(Math.max(to, activeFrom), activeTo, baseLevel);
+        activeFrom = from;
+        activeTo = to;
+    }
+
+    /**
+     * @return true if all the springs [from, to) move less than epsilon
+     */
+    boolean isAtRest(int from, int to, float epsilon, float baseLevel) {
+        for (int i = from; i < to; i++) {
+            if (!isAtRest(i, epsilon, baseLevel)) return false;
+        }
+        return true;
+    }
+
+    private boolean isAtRest(int index, float epsilon, float baseLevel) {
+        return Math.abs(heights[index] - baseLevel) < epsilon && Math.abs(velocities[index]) < epsilon;
+    }
+
+    private void putAtRest(int from, int to, float baseLevel) {
+        for (int i = from; i < to; i++) {
+            heights[i] = baseLevel;
+            velocities[i] = 0f;
+        }
+    }
+
+    /**
+     * Adds a spring and its margin to the active range.
+     */
+    public void wake(int index) {
+        final int from = Math.max(0, index - ACTIVE_MARGIN);
+        final int to = Math.min(count, index + 1 + ACTIVE_MARGIN);
+        if (activeFrom >= activeTo) {
+            activeFrom = from;
+            activeTo = to;
+        } else {
+            activeFrom = Math.min(activeFrom, from);
+            activeTo = Math.max(activeTo, to);
+        }
+    }
+
+    public void wakeAll() {
+        activeFrom = 0;
+        activeTo = count;
+    }
+
+    public int getActiveFrom() {
+        return activeFrom;
+    }
+
+    /**
+     * @return the end (exclusive) of the active range, equal to its start when all the springs are at rest
+     */
+    public int getActiveTo() {
+        return activeTo;
+    }
+
+    /**
+     * @return the largest height difference with the other springs
+     */
+    public float maxHeightDifference(SpringStore other) {
+        float maxDifference = 0f;
+        for (int i = 0; i < count; i++) {
+            maxDifference = Math.max(maxDifference, Math.abs(heights[i] - other.heights[i]));
+        }
+        return maxDifference;
+    }
+
+    /**
+     * @return how many heights and velocities differ, bit for bit, from the other springs
+     */
+    public int countMismatches(SpringStore other) {
+        int mismatches = 0;
+        for (int i = 0; i < count; i++) {
+            if (Float.floatToRawIntBits(heights[i]) != Float.floatToRawIntBits(other.heights[i])) mismatches++;
+            if (Float.floatToRawIntBits(velocities[i]) != Float.floatToRawIntBits(other.velocities[i])) mismatches++;
+        }
+        return mismatches;
+    }
+
+    /**
+     * @return the root mean square of the heights deviation from a level, a measure of the waves amplitude
+     */
+    public float heightsDeviation(float level) {
+        float sum = 0f;
+        for (int i = 0; i < count; i++) {
+            final float deviation = heights[i] - level;
+            sum += deviation * deviation;
+        }
+        return (float) Math.sqrt(sum / count);
+    }
+
+    public void addVelocity(int index, float velocity) {
+        velocities[index] += velocity;
+    }
+
+    /**
+     * @return the index of the spring at or just before the horizontal position, may be out of bounds
+     */
+    public int indexAt(float x) {
+        return (int) Math.floor((x - this.x[0]) / spacing);
+    }
+
+    /**
+     * Samples the surface, the polyline joining the springs, at several positions. Positions outside of the springs are clamped to the ends.
+     * Any output array can be null when not needed.
+     *
+     * @param positionsX Horizontal positions to sample
+     * @param count      Number of positions
+     * @param heights    Surface height at each position, swell included
+     * @param slopes     Surface slope (dy/dx) at each position, swell included
+     * @param velocities Vertical velocity of the springs dynamics at each position, in height per update
+     */
+    public void sampleSurface(float[] positionsX, int count, float[] heights, float[] slopes, float[] velocities) {
+        final int lastGap = this.count - 2;
+        for (int p = 0; p < count; p++) {
+            final int i = Math.max(0, Math.min(lastGap, indexAt(positionsX[p])));
+            final float t = Math.max(0f, Math.min(1f, (positionsX[p] - x[i]) / spacing));
+            final float leftHeight = this.heights[i];
+            final float rightHeight = this.heights[i + 1];
+            if (heights != null) {
+                heights[p] = leftHeight + (rightHeight - leftHeight) * t + (swell == null ? 0f : swell.heightAt(positionsX[p]));
+            }
+            if (slopes != null) {
+                slopes[p] = (rightHeight - leftHeight) / spacing + (swell == null ? 0f : swell.slopeAt(positionsX[p]));
+            }
+            if (velocities != null) {
+                velocities[p] = this.velocities[i] + (this.velocities[i + 1] - this.velocities[i]) * t;
+            }
+        }
+    }
+
+    /**
+     * Moves the window along X. Springs entering the window are at rest, and the whole window becomes active.
+     *
+     * @param springsDelta Springs count to move by, positive towards +X
+     */
+    void scroll(int springsDelta, float baseLevel) {
+        final int kept = count - Math.abs(springsDelta);
+        if (kept > 0) {
+            final int source = Math.max(0, springsDelta);
+            final int destination = Math.max(0, -springsDelta);
+            System.arraycopy(heights, source, heights, destination, kept);
+            System.arraycopy(velocities, source, velocities, destination, kept);
+        }
+
+        final int enteringFrom = springsDelta > 0 ? Math.max(0, kept) : 0;
+        final int enteringTo = springsDelta > 0 ? count : Math.min(count, -springsDelta);
+        putAtRest(enteringFrom, enteringTo, baseLevel);
+
+        origin += springsDelta;
+        for (int i = 0; i < count; i++) {
+            x[i] = fromX + (origin + i) * spacing;
+        }
+        wakeAll();
+    }
+
+    /**
+     * @return the absolute index of the first spring of the window
+     */
+    public int getOrigin() {
+        return origin;
+    }
+
+    public float getSpacing() {
+        return spacing;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public float getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * @return the height of the spring from its dynamics only, without the swell
+     */
+    public float getHeight(int index) {
+        return heights[index];
+    }
+
+    /**
+     * @return the height of the water surface at the spring, base swell included
+     */
+    public float getSurfaceHeight(int index) {
+        return swell == null ? heights[index] : heights[index] + swell.heightAt(x[index]);
+    }
+
+    /**
+     * Copies the positions, heights (without the swell) and velocities of the springs [from, to) into the same indices of the given arrays.
+     */
+    void copyState(int from, int to, float[] x, float[] heights, float[] velocities) {
+        if (from >= to) return;
+
+        System.arraycopy(this.x, from, x, from, to - from);
+        System.arraycopy(this.heights, from, heights, from, to - from);
+        System.arraycopy(this.velocities, from, velocities, from, to - from);
+    }
+
+    void setState(int index, float height, float velocity) {
+        heights[index] = height;
+        velocities[index] = velocity;
+    }
+
+    /**
+     * @param swell Base swell added to the surface where it is read, null for none
+     */
+    public void setSwell(SpectralSwell swell) {
+        this.swell = swell;
+    }
+
+    /**
+     * @return the base swell of the surface, null for none
+     */
+    public SpectralSwell getSwell() {
+        return swell;
+    }
+
+    public float getVelocity(int index) {
+        return velocities[index];
+    }
+}
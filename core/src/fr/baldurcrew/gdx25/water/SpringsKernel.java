@@ -0,0 +1,49 @@
+package fr.baldurcrew.gdx25.water;
+
+/**
+ * Float arithmetic of the springs update and propagation passes, over ranges of the {@link SpringStore} arrays. The default methods are the
+ * scalar loops. Provided by the launcher: a vectorized kernel needs the incubating Vector API, which the html target does not have.
+ * <p>
+ * Any implementation must give the same result, bit for bit, as the scalar loops: the same operations, in the same order, without fused
+ * multiply-adds.
+ */
+public interface SpringsKernel {
+
+    SpringsKernel SCALAR = new SpringsKernel() {
+    };
+
+    /**
+     * Euler integration of the springs [from, to) towards the base level.
+     */
+    default void update(float[] heights, float[] velocities, int from, int to, float stiffness, float dampening, float baseLevel) {
+        for (int i = from; i < to; i++) {
+            final float heightDelta = baseLevel - heights[i];
+            final float acceleration = stiffness * heightDelta - dampening * velocities[i];
+
+            // Euler
+            velocities[i] += acceleration;
+            heights[i] += velocities[i]; // TODO Check: Updated verticalVelocity before position
+        }
+    }
+
+    /**
+     * deltas[i] = spreadFactor * (heights[i + 1] - heights[i]), for i in [from, to).
+     */
+    default void computeDeltas(float[] heights, float[] deltas, int from, int to, float spreadFactor) {
+        for (int i = from; i < to; i++) {
+            deltas[i] = spreadFactor * (heights[i + 1] - heights[i]);
+        }
+    }
+
+    /**
+     * Applies the deltas on both sides of the springs [from, to), all of them having two neighbours.
+     */
+    default void applyDeltas(float[] heights, float[] velocities, float[] deltas, int from, int to) {
+        for (int i = from; i < to; i++) {
+            velocities[i] -= deltas[i - 1];
+            velocities[i] += deltas[i];
+            heights[i] -= deltas[i - 1];
+            heights[i] += deltas[i];
+        }
+    }
+}
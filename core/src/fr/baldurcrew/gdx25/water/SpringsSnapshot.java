@@ -0,0 +1,123 @@
+package fr.baldurcrew.gdx25.water;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of the springs at the end of a simulation step, published by {@link SpringsSnapshots}. Never modified while acquired.
+ * <p>
+ * Also knows which springs changed during the last steps, so that a reader can only process what changed since the snapshot it read before.
+ */
+public class SpringsSnapshot {
+
+    /**
+     * Steps whose changed springs are remembered. A reader more steps behind considers all the springs changed.
+     */
+    static final int HISTORY = 8;
+
+    /**
+     * Readers currently holding this snapshot, it is not refilled until they all released it.
+     */
+    final AtomicInteger readers = new AtomicInteger();
+    final float[] x;
+    final float[] heights;
+    final float[] velocities;
+    /**
+     * Base swell components of the state, see {@link SpectralSwell#getComponents()}. All 0 without swell.
+     */
+    final float[] swellComponents = new float[SpectralSwell.COMPONENTS_COUNT * SpectralSwell.PACKED_COMPONENT_FLOATS];
+    final int[] historyFrom = new int[HISTORY];
+    final int[] historyTo = new int[HISTORY];
+    /**
+     * Simulation step of the state, 0 if never filled.
+     */
+    long step;
+    int activeFrom;
+    int activeTo;
+    float swellMaxHeight;
+
+    SpringsSnapshot(int springsCount) {
+        this.x = new float[springsCount];
+        this.heights = new float[springsCount];
+        this.velocities = new float[springsCount];
+    }
+
+    /**
+     * @param sinceStep Step of the state the reader already processed, 0 if none
+     * @return the index of the first spring that changed after this step
+     */
+    public int getChangedFrom(long sinceStep) {
+        if (sinceStep <= 0 || step - sinceStep > HISTORY) return 0;
+
+        int from = size();
+        for (long s = sinceStep + 1; s <= step; s++) {
+            from = Math.min(from, historyFrom[(int) (s % HISTORY)]);
+        }
+        return from;
+    }
+
+    /**
+     * @param sinceStep Step of the state the reader already processed, 0 if none
+     * @return the index (exclusive) of the last spring that changed after this step
+     */
+    public int getChangedTo(long sinceStep) {
+        if (sinceStep <= 0 || step - sinceStep > HISTORY) return size();
+
+        int to = 0;
+        for (long s = sinceStep + 1; s <= step; s++) {
+            to = Math.max(to, historyTo[(int) (s % HISTORY)]);
+        }
+        return to;
+    }
+
+    public long getStep() {
+        return step;
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public float getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * @return the height of the spring, without the base swell
+     */
+    public float getHeight(int index) {
+        return heights[index];
+    }
+
+    /**
+     * @return the base swell height at a world position
+     */
+    public float getSwellHeight(float x) {
+        return SpectralSwell.heightAt(swellComponents, x);
+    }
+
+    /**
+     * @return the base swell components, {@link SpectralSwell#PACKED_COMPONENT_FLOATS} floats each, as uploaded to the water shaders
+     */
+    public float[] getSwellComponents() {
+        return swellComponents;
+    }
+
+    /**
+     * @return the largest height the base swell adds to or removes from the springs
+     */
+    public float getSwellMaxHeight() {
+        return swellMaxHeight;
+    }
+
+    public float getVelocity(int index) {
+        return velocities[index];
+    }
+
+    public int getActiveFrom() {
+        return activeFrom;
+    }
+
+    public int getActiveTo() {
+        return activeTo;
+    }
+}
@@ -0,0 +1,104 @@
+package fr.baldurcrew.gdx25.water;
+
+import com.badlogic.gdx.Gdx;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the springs state from the simulation thread to any number of reader threads, without locks nor copies on the reader side.
+ * <p>
+ * The simulation fills a back snapshot at the end of each step and swaps it atomically with the front one. A reader acquires the front snapshot
+ * and releases it when done, it can never see a snapshot being filled. The back snapshot is only refilled once all its readers released it,
+ * otherwise another snapshot is allocated. With readers holding a snapshot shorter than a step, two snapshots are enough.
+ * <p>
+ * Refilling a snapshot only copies the springs that changed since it was last filled.
+ */
+public class SpringsSnapshots {
+
+    private final int springsCount;
+    private final AtomicReference<SpringsSnapshot> front;
+    /**
+     * All the snapshots, only accessed by the simulation thread.
+     */
+    private final ArrayList<SpringsSnapshot> snapshots = new ArrayList<>();
+    private final int[] historyFrom = new int[SpringsSnapshot.HISTORY];
+    private final int[] historyTo = new int[SpringsSnapshot.HISTORY];
+    private long step;
+
+    public SpringsSnapshots(int springsCount) {
+        this.springsCount = springsCount;
+        final var initial = new SpringsSnapshot(springsCount);
+        snapshots.add(initial);
+        snapshots.add(new SpringsSnapshot(springsCount));
+        front = new AtomicReference<>(initial);
+    }
+
+    /**
+     * Called by the simulation thread at the end of a step.
+     *
+     * @param changedFrom Index of the first spring that changed since the last publication
+     * @param changedTo   Index (exclusive) of the last spring that changed since the last publication
+     */
+    public void publish(SpringStore springs, int changedFrom, int changedTo) {
+        step++;
+        final int historyIndex = (int) (step % SpringsSnapshot.HISTORY);
+        historyFrom[historyIndex] = changedFrom < changedTo ? changedFrom : springsCount;
+        historyTo[historyIndex] = changedFrom < changedTo ? changedTo : 0;
+
+        final var back = getFreeSnapshot();
+        final long filledStep = back.step;
+        back.step = step;
+        System.arraycopy(historyFrom, 0, back.historyFrom, 0, SpringsSnapshot.HISTORY);
+        System.arraycopy(historyTo, 0, back.historyTo, 0, SpringsSnapshot.HISTORY);
+        springs.copyState(back.getChangedFrom(filledStep), back.getChangedTo(filledStep), back.x, back.heights, back.velocities);
+        back.activeFrom = springs.getActiveFrom();
+        back.activeTo = springs.getActiveTo();
+        final var swell = springs.getSwell();
+        if (swell != null) {
+            System.arraycopy(swell.getComponents(), 0, back.swellComponents, 0, back.swellComponents.length);
+            back.swellMaxHeight = swell.getMaxHeight();
+        }
+
+        front.set(back);
+    }
+
+    private SpringsSnapshot getFreeSnapshot() {
+        final var current = front.get();
+        for (int i = 0; i < snapshots.size(); i++) {
+            final var snapshot = snapshots.get(i);
+            if (snapshot != current && snapshot.readers.get() == 0) return snapshot;
+        }
+
+        final var snapshot = new SpringsSnapshot(springsCount);
+        snapshots.add(snapshot);
+        Gdx.app.log("Water", "Springs snapshot held by a reader for more than a step, " + snapshots.size() + " snapshots allocated");
+        return snapshot;
+    }
+
+    /**
+     * Can be called from any thread. The snapshot must be released with {@link #release(SpringsSnapshot)}, and not be read after.
+     *
+     * @return the state of the springs at the end of the last step
+     */
+    public SpringsSnapshot acquire() {
+        while (true) {
+            final var snapshot = front.get();
+            snapshot.readers.incrementAndGet();
+            // Otherwise the simulation may have started to refill it before it was marked as read
+            if (front.get() == snapshot) return snapshot;
+            snapshot.readers.decrementAndGet();
+        }
+    }
+
+    public void release(SpringsSnapshot snapshot) {
+        snapshot.readers.decrementAndGet();
+    }
+
+    /**
+     * @return the snapshots allocated, 2 unless a reader held one for more than a step
+     */
+    public int getSnapshotsCount() {
+        return snapshots.size();
+    }
+}
@@ -0,0 +1,250 @@
+package fr.baldurcrew.gdx25.water;
+
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.Transform;
+import com.badlogic.gdx.utils.Pool;
+import fr.baldurcrew.gdx25.utils.PolygonClipper;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Submerged polygons of the immersed fixtures, reused from one update to another.
+ * <p>
+ * Between two updates, a floating body and the water under it barely move.
+ * The polygon clipped for a fixture against a water polygon is kept, along with the fixture transform and the water polygon it was clipped from.
+ * While neither moved more than the tolerances since then, the kept polygon, area and centroid are reused instead of clipping again.
+ * The kept state is only refreshed on a miss, so the error of a hit never exceeds the tolerances.
+ */
+public class SubmergedPolygonCache {
+
+    private final PolygonClipper clipper;
+    /**
+     * Entries of each fixture, chained since a fixture can be immersed in several water polygons.
+     */
+    private final HashMap<Fixture, Entry> entries = new HashMap<>();
+    private final Pool<Entry> entriesPool = new Pool<>() {
+        @Override
+        protected Entry newObject() {
+            return new Entry();
+        }
+    };
+    private float positionTolerance;
+    private float angleTolerance;
+    private float heightTolerance;
+    private boolean enabled = true;
+    private int updateIndex;
+    private int hits;
+    private int misses;
+    private Entry current;
+
+    /**
+     * @param clipper           Clipper used on a miss
+     * @param positionTolerance Distance a fixture can move before being clipped again
+     * @param angleTolerance    Angle in radians a fixture can rotate before being clipped again
+     * @param heightTolerance   Distance a water polygon vertex can move before the fixtures in it are clipped again
+     */
+    public SubmergedPolygonCache(PolygonClipper clipper, float positionTolerance, float angleTolerance, float heightTolerance) {
+        this.clipper = clipper;
+        this.positionTolerance = positionTolerance;
+        this.angleTolerance = angleTolerance;
+        this.heightTolerance = heightTolerance;
+    }
+
+    /**
+     * Starts an update, resetting the hits and misses counters.
+     */
+    public void begin() {
+        updateIndex++;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Drops the entries not used since {@link #begin()}, whose fixture left the water or was destroyed.
+     */
+    public void end() {
+        final Iterator<Entry> heads = entries.values().iterator();
+        while (heads.hasNext()) {
+            final var head = heads.next();
+            Entry kept = null;
+            Entry entry = head;
+            while (entry != null) {
+                final var next = entry.next;
+                if (entry.lastUpdateIndex == updateIndex) {
+                    entry.next = kept;
+                    kept = entry;
+                } else {
+                    entriesPool.free(entry);
+                }
+                entry = next;
+            }
+            if (kept == null) {
+                heads.remove();
+            } else if (kept != head) {
+                entries.put(kept.fixture, kept);
+            }
+        }
+    }
+
+    /**
+     * Clips a water polygon by a fixture, or reuses the last intersection of this water polygon and fixture if none of them moved more than the tolerances.
+     * The intersection is then available from the getters of this cache.
+     *
+     * @param subjectKey   Identity of the water polygon, the same object from one update to another
+     * @param subject      Flattened world vertices of the water polygon
+     * @param subjectCount Vertex count of the water polygon
+     * @param clipFixture  Convex polygon fixture, with an immutable shape
+     * @return the vertex count of the intersection, 0 if empty
+     */
+    public int clip(Object subjectKey, float[] subject, int subjectCount, Fixture clipFixture) {
+        final Transform transform = clipFixture.getBody().getTransform();
+        final float x = transform.vals[Transform.POS_X];
+        final float y = transform.vals[Transform.POS_Y];
+        final float angle = transform.getRotation();
+
+        var entry = findEntry(clipFixture, subjectKey);
+        if (entry != null && enabled && entry.matches(x, y, angle, subject, subjectCount)) {
+            hits++;
+        } else {
+            if (entry == null) {
+                entry = entriesPool.obtain();
+                entry.fixture = clipFixture;
+                entry.subjectKey = subjectKey;
+                entry.next = entries.put(clipFixture, entry);
+            }
+            misses++;
+            clipper.clip(subject, subjectCount, clipFixture);
+            entry.store(x, y, angle, subject, subjectCount, clipper);
+        }
+        entry.lastUpdateIndex = updateIndex;
+        current = entry;
+        return entry.vertexCount;
+    }
+
+    private Entry findEntry(Fixture fixture, Object subjectKey) {
+        for (var entry = entries.get(fixture); entry != null; entry = entry.next) {
+            if (entry.subjectKey == subjectKey) return entry;
+        }
+        return null;
+    }
+
+    public float[] getVertices() {
+        return current.vertices;
+    }
+
+    public int getVertexCount() {
+        return current.vertexCount;
+    }
+
+    public float getArea() {
+        return current.area;
+    }
+
+    public float getCentroidX() {
+        return current.centroidX;
+    }
+
+    public float getCentroidY() {
+        return current.centroidY;
+    }
+
+    /**
+     * @return the intersections reused since the last {@link #begin()}
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the intersections clipped since the last {@link #begin()}
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @param enabled False to always clip, the entries being still kept up to date
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public float getPositionTolerance() {
+        return positionTolerance;
+    }
+
+    public void setPositionTolerance(float positionTolerance) {
+        this.positionTolerance = positionTolerance;
+    }
+
+    public float getAngleTolerance() {
+        return angleTolerance;
+    }
+
+    public void setAngleTolerance(float angleTolerance) {
+        this.angleTolerance = angleTolerance;
+    }
+
+    public float getHeightTolerance() {
+        return heightTolerance;
+    }
+
+    public void setHeightTolerance(float heightTolerance) {
+        this.heightTolerance = heightTolerance;
+    }
+
+    private class Entry implements Pool.Poolable {
+        private Fixture fixture;
+        private Object subjectKey;
+        private Entry next;
+        private int lastUpdateIndex;
+        private float x;
+        private float y;
+        private float angle;
+        private float[] subject = new float[16];
+        private int subjectCount;
+        private float[] vertices = new float[16];
+        private int vertexCount;
+        private float area;
+        private float centroidX;
+        private float centroidY;
+
+        private boolean matches(float x, float y, float angle, float[] subject, int subjectCount) {
+            if (Math.abs(x - this.x) > positionTolerance || Math.abs(y - this.y) > positionTolerance) return false;
+            if (Math.abs(angle - this.angle) > angleTolerance) return false;
+            if (subjectCount != this.subjectCount) return false;
+            for (int i = 0; i < subjectCount * 2; i++) {
+                if (Math.abs(subject[i] - this.subject[i]) > heightTolerance) return false;
+            }
+            return true;
+        }
+
+        private void store(float x, float y, float angle, float[] subject, int subjectCount, PolygonClipper clipper) {
+            this.x = x;
+            this.y = y;
+            this.angle = angle;
+            this.subjectCount = subjectCount;
+            if (this.subject.length < subjectCount * 2) {
+                this.subject = new float[subjectCount * 2];
+            }
+            System.arraycopy(subject, 0, this.subject, 0, subjectCount * 2);
+
+            vertexCount = clipper.getVertexCount();
+            if (vertices.length < vertexCount * 2) {
+                vertices = new float[vertexCount * 2];
+            }
+            System.arraycopy(clipper.getVertices(), 0, vertices, 0, vertexCount * 2);
+            area = clipper.getArea();
+            centroidX = clipper.getCentroidX();
+            centroidY = clipper.getCentroidY();
+        }
+
+        @Override
+        public void reset() {
+            fixture = null;
+            subjectKey = null;
+            next = null;
+        }
+    }
+}
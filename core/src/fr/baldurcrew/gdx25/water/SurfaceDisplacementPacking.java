@@ -0,0 +1,91 @@
+package fr.baldurcrew.gdx25.water;
+
+/**
+ * CPU side of the shader displaced water surface, without any GL call: the static grid, the heights packed for the shader, and the
+ * reference of the shader interpolation.
+ * <p>
+ * The grid has one bottom and one top vertex per fine sample. A vertex only holds its spring coordinate (spring index plus the fraction of
+ * the gap) and its role, the shader computes its position from the uploaded spring heights.
+ */
+public final class SurfaceDisplacementPacking {
+
+    /**
+     * Spring coordinate and role (1 at the surface, 0 at the bottom).
+     */
+    public static final int VALUES_PER_VERTEX = 2;
+
+    private SurfaceDisplacementPacking() {
+    }
+
+    /**
+     * @param springsCount How many springs simulate the water surface
+     * @param subdivisions Fine samples per gap between two springs, same as {@link RenderHeightfield}
+     * @return the flattened vertices of the grid, bottom then top vertex of each fine sample
+     */
+    public static float[] buildGridVertices(int springsCount, int subdivisions) {
+        final int samplesCount = (springsCount - 1) * subdivisions + 1;
+        final var vertices = new float[samplesCount * 2 * VALUES_PER_VERTEX];
+        for (int i = 0; i < samplesCount; i++) {
+            final float springCoordinate = (float) (i / subdivisions) + (float) (i % subdivisions) / subdivisions;
+            final int bottom = i * 2 * VALUES_PER_VERTEX;
+            vertices[bottom] = springCoordinate;
+            vertices[bottom + 1] = 0f;
+            vertices[bottom + VALUES_PER_VERTEX] = springCoordinate;
+            vertices[bottom + VALUES_PER_VERTEX + 1] = 1f;
+        }
+        return vertices;
+    }
+
+    /**
+     * @param rectCount Rectangles between consecutive samples, each having a bottom and a top vertex
+     * @return two triangles per rectangle, also the layout of the water mesh chunks
+     */
+    public static short[] buildGridIndices(int rectCount) {
+        final var indices = new short[rectCount * 6];
+        // 0 1 2  2 3 0
+        //2-1       2
+        // \|  and  |\
+        //  0       3-0
+        // With the sample i vertices: 0 = bottom i + 1, 1 = top i + 1, 2 = top i, 3 = bottom i
+        for (int i = 0; i < rectCount; i++) {
+            final int leftBottom = i * 2;
+            final int rightBottom = (i + 1) * 2;
+            indices[i * 6] = (short) rightBottom;
+            indices[i * 6 + 1] = (short) (rightBottom + 1);
+            indices[i * 6 + 2] = (short) (leftBottom + 1);
+            indices[i * 6 + 3] = (short) (leftBottom + 1);
+            indices[i * 6 + 4] = (short) leftBottom;
+            indices[i * 6 + 5] = (short) rightBottom;
+        }
+        return indices;
+    }
+
+    /**
+     * Packs the springs heights, one float per spring, to be uploaded as the shader heights array.
+     */
+    public static void packHeights(SpringsSnapshot springs, float[] packed) {
+        for (int i = 0; i < springs.size(); i++) {
+            packed[i] = springs.getHeight(i);
+        }
+    }
+
+    /**
+     * Same interpolation as the shader, and as {@link RenderHeightfield} at the fine samples: Catmull-Rom between the springs, the end
+     * springs being repeated outside.
+     *
+     * @param heights          Packed heights
+     * @param count            Springs count
+     * @param springCoordinate Spring index plus the fraction of the gap to the next spring
+     */
+    public static float interpolate(float[] heights, int count, float springCoordinate) {
+        final int i = (int) Math.floor(springCoordinate);
+        final float t = springCoordinate - i;
+        final float t2 = t * t;
+        final float t3 = t2 * t;
+        final float h0 = heights[Math.max(0, Math.min(count - 1, i - 1))];
+        final float h1 = heights[Math.max(0, Math.min(count - 1, i))];
+        final float h2 = heights[Math.max(0, Math.min(count - 1, i + 1))];
+        final float h3 = heights[Math.max(0, Math.min(count - 1, i + 2))];
+        return 0.5f * (-t3 + 2f * t2 - t) * h0 + 0.5f * (3f * t3 - 5f * t2 + 2f) * h1 + 0.5f * (-3f * t3 + 4f * t2 + t) * h2 + 0.5f * (t3 - t2) * h3;
+    }
+}
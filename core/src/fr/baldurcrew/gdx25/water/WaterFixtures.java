@@ -0,0 +1,344 @@
+package fr.baldurcrew.gdx25.water;
+
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Physical representation of the water surface: sensor fixtures of the static water body, covering a range of springs.
+ * <p>
+ * The range is split in blocks of {@link #maxSpringsPerFixture} springs. Each block has its own level of detail k, and is covered by one fixture
+ * per k springs. A fixture is a polygon following the water surface over its springs (a box when k = 1). The level of detail of a block can adapt
+ * to the distance from the nearest dynamic body.
+ * <p>
+ * The fixtures follow the springs only, the base swell moves the surface on top of them. Their Box2D shapes are raised by a margin covering
+ * the swell so that contacts begin before a body reaches the swelled surface, while their {@link SurfacePolygon} stays on the springs.
+ */
+public class WaterFixtures {
+
+    /**
+     * Minimal spring height change before a water fixture gets reshaped.
+     */
+    private static final float RESHAPE_THRESHOLD = 0.001f;
+    /**
+     * Box2D limit on the vertex count of a polygon (b2_maxPolygonVertices).
+     */
+    static final int MAX_POLYGON_VERTICES = 8;
+    /**
+     * 2 bottom vertices and the top right vertex, the remaining vertices sample the water surface.
+     */
+    private static final int MAX_SURFACE_SAMPLES = MAX_POLYGON_VERTICES - 3;
+
+    private final Body body;
+    private final SpringStore springs;
+    private final int fromIndex;
+    private final int toIndex;
+    private final float springsSpacing;
+    private final float bodyCenterX;
+    private final float bodyCenterY;
+    /**
+     * Spring heights used for the current shape of the fixtures, indexed like the springs.
+     */
+    private final float[] shapedHeights;
+    private final float[] polygonVertices = new float[MAX_POLYGON_VERTICES * 2];
+    private final Array<Body> worldBodies = new Array<>();
+    private final FloatArray dynamicBodiesX = new FloatArray();
+
+    private float density;
+    private int maxSpringsPerFixture;
+    /**
+     * Distance from the nearest dynamic body after which the fixtures of a block get one more spring.
+     */
+    private float lodDistanceStep;
+    /**
+     * Height added to the top of the Box2D shapes, and the one they currently have.
+     */
+    private float surfaceMargin;
+    private float shapedSurfaceMargin;
+
+    private int blockCount;
+    /**
+     * Fixtures of each block, packed at the start of each array.
+     */
+    private Fixture[][] blockFixtures;
+    private int[] blockFixturesCount;
+    /**
+     * Springs per fixture of each block, 0 when the block has no fixtures yet.
+     */
+    private int[] blockLod;
+
+    /**
+     * @param body                 Static water body
+     * @param springs              Springs simulating the water surface
+     * @param fromIndex            Index of the first spring covered by the fixtures
+     * @param toIndex              Index (exclusive) of the last spring covered by the fixtures
+     * @param springsSpacing       Horizontal distance between two springs
+     * @param density              Water density
+     * @param maxSpringsPerFixture Springs per fixture at the coarsest level of detail
+     * @param lodDistanceStep      Distance from the nearest dynamic body after which fixtures get one more spring
+     */
+    public WaterFixtures(Body body, SpringStore springs, int fromIndex, int toIndex, float springsSpacing, float density, int maxSpringsPerFixture, float lodDistanceStep) {
+        this.body = body;
+        this.springs = springs;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.springsSpacing = springsSpacing;
+        this.density = density;
+        this.lodDistanceStep = lodDistanceStep;
+        this.bodyCenterX = body.getWorldCenter().x;
+        this.bodyCenterY = body.getWorldCenter().y;
+        this.shapedHeights = new float[springs.size()];
+
+        createBlocks(maxSpringsPerFixture);
+    }
+
+    private void createBlocks(int maxSpringsPerFixture) {
+        this.maxSpringsPerFixture = maxSpringsPerFixture;
+        blockCount = (toIndex - fromIndex + maxSpringsPerFixture - 1) / maxSpringsPerFixture;
+        blockFixtures = new Fixture[blockCount][maxSpringsPerFixture];
+        blockFixturesCount = new int[blockCount];
+        blockLod = new int[blockCount];
+    }
+
+    /**
+     * @param reshape     If true, existing fixtures are reshaped in place and keep their identity (and contacts). Else, they are all destroyed and recreated.
+     * @param adaptiveLod If true, the level of detail of each block depends on its distance from the nearest dynamic body. Else, all blocks use the coarsest level of detail.
+     * @param changedFrom Index of the first spring that may have moved since the last update
+     * @param changedTo   Index (exclusive) of the last spring that may have moved since the last update. Blocks outside of the changed springs are not reshaped.
+     */
+    public void update(boolean reshape, boolean adaptiveLod, int changedFrom, int changedTo) {
+        if (adaptiveLod) {
+            gatherDynamicBodies();
+        }
+
+        final boolean marginChanged = surfaceMargin != shapedSurfaceMargin;
+        shapedSurfaceMargin = surfaceMargin;
+        boolean reshaped = false;
+        for (int b = 0; b < blockCount; b++) {
+            final int lod = adaptiveLod ? computeBlockLod(b) : maxSpringsPerFixture;
+            if (!reshape || lod != blockLod[b]) {
+                destroyBlock(b);
+                generateBlock(b, lod);
+            } else if (marginChanged || (getBlockFrom(b) < changedTo && getBlockTo(b) > changedFrom)) {
+                reshaped |= reshapeBlock(b, marginChanged);
+            }
+        }
+
+        if (reshaped) {
+            // Box2D only refreshes the broad-phase bounds of a static body's fixtures when the body is moved
+            body.setTransform(body.getPosition(), body.getAngle());
+        }
+    }
+
+    private void gatherDynamicBodies() {
+        dynamicBodiesX.clear();
+        body.getWorld().getBodies(worldBodies);
+        for (Body worldBody : worldBodies) {
+            if (worldBody.getType() == BodyDef.BodyType.DynamicBody) {
+                dynamicBodiesX.add(worldBody.getPosition().x);
+            }
+        }
+    }
+
+    private int computeBlockLod(int block) {
+        final float blockFromX = springs.getX(getBlockFrom(block));
+        final float blockToX = blockFromX + (getBlockTo(block) - getBlockFrom(block)) * springsSpacing;
+
+        float nearestDistance = Float.MAX_VALUE;
+        for (int i = 0; i < dynamicBodiesX.size; i++) {
+            final float bodyX = dynamicBodiesX.items[i];
+            final float distance = Math.max(0f, Math.max(blockFromX - bodyX, bodyX - blockToX));
+            nearestDistance = Math.min(nearestDistance, distance);
+        }
+
+        if (nearestDistance >= lodDistanceStep * maxSpringsPerFixture) return maxSpringsPerFixture;
+        return Math.min(maxSpringsPerFixture, 1 + (int) (nearestDistance / lodDistanceStep));
+    }
+
+    private void generateBlock(int block, int lod) {
+        final int blockTo = getBlockTo(block);
+
+        final var waterPolygon = new PolygonShape();
+        final var fixtureDef = new FixtureDef();
+        fixtureDef.shape = waterPolygon;
+        fixtureDef.isSensor = true;
+        fixtureDef.density = density;
+
+        int fixturesCount = 0;
+        for (int from = getBlockFrom(block); from < blockTo; from += lod) {
+            final var surfacePolygon = new SurfacePolygon();
+            shapeFixture(waterPolygon, surfacePolygon, from, Math.min(from + lod, blockTo));
+            final var fixture = body.createFixture(fixtureDef);
+            fixture.setUserData(surfacePolygon);
+            blockFixtures[block][fixturesCount++] = fixture;
+        }
+        waterPolygon.dispose();
+
+        blockFixturesCount[block] = fixturesCount;
+        blockLod[block] = lod;
+    }
+
+    private void destroyBlock(int block) {
+        for (int f = 0; f < blockFixturesCount[block]; f++) {
+            body.destroyFixture(blockFixtures[block][f]);
+            blockFixtures[block][f] = null;
+        }
+        blockFixturesCount[block] = 0;
+        blockLod[block] = 0;
+    }
+
+    /**
+     * Updates the shape of the existing fixtures of a block in place, only for the fixtures whose springs changed height unless all are.
+     *
+     * @return true if at least one fixture was reshaped
+     */
+    private boolean reshapeBlock(int block, boolean all) {
+        final int lod = blockLod[block];
+        final int blockTo = getBlockTo(block);
+
+        boolean reshaped = false;
+        int fixtureIndex = 0;
+        for (int from = getBlockFrom(block); from < blockTo; from += lod) {
+            final int to = Math.min(from + lod, blockTo);
+            if (all || hasChanged(from, to)) {
+                final var fixture = blockFixtures[block][fixtureIndex];
+                shapeFixture((PolygonShape) fixture.getShape(), (SurfacePolygon) fixture.getUserData(), from, to);
+                reshaped = true;
+            }
+            fixtureIndex++;
+        }
+        return reshaped;
+    }
+
+    private boolean hasChanged(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Math.abs(springs.getHeight(i) - shapedHeights[i]) >= RESHAPE_THRESHOLD) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Shapes a polygon from the bottom of the water to its surface, over the springs [from, to).
+     * The last spring height is held until the right edge, so that a single spring gives a box.
+     * Box2D polygons are convex: troughs between the sampled springs are filled by the hull of the Box2D shape, but not in the {@link SurfacePolygon}.
+     */
+    private void shapeFixture(PolygonShape waterPolygon, SurfacePolygon surfacePolygon, int from, int to) {
+        final int springsCount = to - from;
+        final float leftX = springs.getX(from);
+        final float rightX = leftX + springsCount * springsSpacing;
+        final float[] vertices = surfacePolygon.vertices;
+        surfacePolygon.column = from;
+
+        int v = 0;
+        vertices[v++] = leftX;
+        vertices[v++] = 0f;
+        vertices[v++] = rightX;
+        vertices[v++] = 0f;
+        vertices[v++] = rightX;
+        vertices[v++] = springs.getHeight(to - 1);
+
+        final int samples = Math.min(springsCount, MAX_SURFACE_SAMPLES);
+        for (int s = samples - 1; s >= 0; s--) {
+            final int springIndex = samples == 1 ? from : from + s * (springsCount - 1) / (samples - 1);
+            vertices[v++] = springs.getX(springIndex);
+            vertices[v++] = springs.getHeight(springIndex);
+        }
+        surfacePolygon.vertexCount = v / 2;
+
+        for (int i = 0; i < v; i += 2) {
+            polygonVertices[i] = vertices[i] - bodyCenterX;
+            // The 2 bottom vertices come first
+            polygonVertices[i + 1] = vertices[i + 1] - bodyCenterY + (i < 4 ? 0f : shapedSurfaceMargin);
+        }
+        waterPolygon.set(polygonVertices, 0, v);
+
+        for (int i = from; i < to; i++) {
+            shapedHeights[i] = springs.getHeight(i);
+        }
+    }
+
+    private int getBlockFrom(int block) {
+        return fromIndex + block * maxSpringsPerFixture;
+    }
+
+    private int getBlockTo(int block) {
+        return Math.min(getBlockFrom(block) + maxSpringsPerFixture, toIndex);
+    }
+
+    /**
+     * Destroys all the fixtures, they are generated again at the next update.
+     */
+    public void clear() {
+        for (int b = 0; b < blockCount; b++) {
+            destroyBlock(b);
+        }
+    }
+
+    /**
+     * World space, counter-clockwise vertices of a water fixture, kept Java side. Set as the user data of each water fixture.
+     */
+    public static class SurfacePolygon {
+        private final float[] vertices = new float[MAX_POLYGON_VERTICES * 2];
+        private int vertexCount;
+        /**
+         * First spring covered by the fixture, unique among the water fixtures.
+         */
+        private int column;
+
+        public float[] getVertices() {
+            return vertices;
+        }
+
+        public int getVertexCount() {
+            return vertexCount;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+    }
+
+    public int getFixtureCount() {
+        int count = 0;
+        for (int b = 0; b < blockCount; b++) {
+            count += blockFixturesCount[b];
+        }
+        return count;
+    }
+
+    public void setDensity(float density) {
+        this.density = density;
+        for (int b = 0; b < blockCount; b++) {
+            for (int f = 0; f < blockFixturesCount[b]; f++) {
+                blockFixtures[b][f].setDensity(density);
+            }
+        }
+    }
+
+    public int getMaxSpringsPerFixture() {
+        return maxSpringsPerFixture;
+    }
+
+    /**
+     * Destroys all the fixtures, they are generated again at the next update.
+     */
+    public void setMaxSpringsPerFixture(int maxSpringsPerFixture) {
+        clear();
+        createBlocks(Math.max(1, maxSpringsPerFixture));
+    }
+
+    /**
+     * @param surfaceMargin Height added to the top of the Box2D shapes from the next update, typically the base swell largest height
+     */
+    public void setSurfaceMargin(float surfaceMargin) {
+        this.surfaceMargin = surfaceMargin;
+    }
+
+    public float getLodDistanceStep() {
+        return lodDistanceStep;
+    }
+
+    public void setLodDistanceStep(float lodDistanceStep) {
+        this.lodDistanceStep = lodDistanceStep;
+    }
+}
@@ -0,0 +1,186 @@
+package fr.baldurcrew.gdx25.water;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.utils.IntArray;
+import fr.baldurcrew.gdx25.physics.BodyUserData;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Bodies touching the water fixtures, as bitsets instead of a set of contacts.
+ * <p>
+ * A water fixture is identified by its column, the first spring it covers. Each body touching the water gets a slot while it touches at least
+ * one column, stored in its {@link BodyUserData}, so that no contact event needs a lookup. Each column has a bitset of the slots touching it,
+ * and each slot the reverse bitset of the columns it touches. Slots are reused, so the bitsets stay as wide as the most bodies in the water at
+ * once.
+ */
+public class WaterOccupancy {
+
+    private final int columnsCount;
+    private final int columnWords;
+    /**
+     * Water fixture of each column, only valid while the column has slots.
+     */
+    private final Fixture[] columnFixtures;
+    /**
+     * Columns having at least one slot.
+     */
+    private final long[] occupiedColumns;
+    private final IntArray freeSlots = new IntArray();
+    private Body[] slotBodies = new Body[0];
+    private int slotWords;
+    /**
+     * Slots bitset of each column, slotWords longs per column.
+     */
+    private long[] columnSlots = new long[0];
+    /**
+     * Fixtures of each slot body touching each column, slotWords * 64 counts per column. A body leaves a column with its last fixture in it.
+     */
+    private short[] columnSlotFixtures = new short[0];
+    /**
+     * Columns bitset of each slot, columnWords longs per slot.
+     */
+    private long[] slotColumns = new long[0];
+    /**
+     * Slots ever used since the last clear, the free ones included.
+     */
+    private int slotsCount;
+    private int bodiesCount;
+
+    /**
+     * @param columnsCount How many springs
+     */
+    public WaterOccupancy(int columnsCount) {
+        this.columnsCount = columnsCount;
+        this.columnWords = (columnsCount + Long.SIZE - 1) / Long.SIZE;
+        this.columnFixtures = new Fixture[columnsCount];
+        this.occupiedColumns = new long[columnWords];
+    }
+
+    /**
+     * @param column       First spring of the water fixture
+     * @param waterFixture Water fixture touched
+     * @param fixture      Fixture touching the water fixture, its body user data must be a {@link BodyUserData}
+     */
+    public void add(int column, Fixture waterFixture, Fixture fixture) {
+        final var body = fixture.getBody();
+        final var userData = (BodyUserData) body.getUserData();
+        int slot = userData.getOccupancySlot();
+        if (slot < 0) {
+            slot = obtainSlot();
+            userData.setOccupancySlot(slot);
+            slotBodies[slot] = body;
+            bodiesCount++;
+        }
+
+        columnFixtures[column] = waterFixture;
+        columnSlotFixtures[column * slotWords * Long.SIZE + slot]++;
+        columnSlots[column * slotWords + slot / Long.SIZE] |= 1L << slot;
+        slotColumns[slot * columnWords + column / Long.SIZE] |= 1L << column;
+        occupiedColumns[column / Long.SIZE] |= 1L << column;
+    }
+
+    /**
+     * Must follow an {@link #add(int, Fixture, Fixture)} of the same column and fixture, like a contact end follows its begin. Ignored if the
+     * fixture body does not touch the column, after a {@link #clear()} for instance.
+     */
+    public void remove(int column, Fixture fixture) {
+        final var userData = (BodyUserData) fixture.getBody().getUserData();
+        final int slot = userData.getOccupancySlot();
+        if (slot < 0) return;
+        final int countIndex = column * slotWords * Long.SIZE + slot;
+        if (columnSlotFixtures[countIndex] == 0 || --columnSlotFixtures[countIndex] > 0) return;
+
+        columnSlots[column * slotWords + slot / Long.SIZE] &= ~(1L << slot);
+        slotColumns[slot * columnWords + column / Long.SIZE] &= ~(1L << column);
+        if (isEmpty(columnSlots, column * slotWords, slotWords)) {
+            occupiedColumns[column / Long.SIZE] &= ~(1L << column);
+            columnFixtures[column] = null;
+        }
+        if (isEmpty(slotColumns, slot * columnWords, columnWords)) {
+            userData.setOccupancySlot(-1);
+            slotBodies[slot] = null;
+            freeSlots.add(slot);
+            bodiesCount--;
+        }
+    }
+
+    /**
+     * Visits the touching pairs, column by column.
+     *
+     * @param consumer Receives the water fixture and the body touching it
+     */
+    public void forEach(BiConsumer<Fixture, Body> consumer) {
+        for (int cw = 0; cw < columnWords; cw++) {
+            for (long columns = occupiedColumns[cw]; columns != 0; columns &= columns - 1) {
+                final int column = cw * Long.SIZE + Long.numberOfTrailingZeros(columns);
+                final var waterFixture = columnFixtures[column];
+                for (int sw = 0; sw < slotWords; sw++) {
+                    for (long columnSlotsWord = columnSlots[column * slotWords + sw]; columnSlotsWord != 0; columnSlotsWord &= columnSlotsWord - 1) {
+                        consumer.accept(waterFixture, slotBodies[sw * Long.SIZE + Long.numberOfTrailingZeros(columnSlotsWord)]);
+                    }
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < slotsCount; slot++) {
+            if (slotBodies[slot] != null) {
+                ((BodyUserData) slotBodies[slot].getUserData()).setOccupancySlot(-1);
+            }
+        }
+        Arrays.fill(columnFixtures, null);
+        Arrays.fill(occupiedColumns, 0L);
+        Arrays.fill(slotBodies, null);
+        Arrays.fill(columnSlots, 0L);
+        Arrays.fill(columnSlotFixtures, (short) 0);
+        Arrays.fill(slotColumns, 0L);
+        freeSlots.clear();
+        slotsCount = 0;
+        bodiesCount = 0;
+    }
+
+    /**
+     * @return the bodies currently touching the water
+     */
+    public int getBodiesCount() {
+        return bodiesCount;
+    }
+
+    private int obtainSlot() {
+        if (freeSlots.size > 0) return freeSlots.pop();
+
+        if (slotsCount == slotWords * Long.SIZE) {
+            growSlots();
+        }
+        return slotsCount++;
+    }
+
+    /**
+     * Widens the slots bitsets and counts of the columns by one word.
+     */
+    private void growSlots() {
+        final int grownSlotWords = slotWords + 1;
+        final var grownColumnSlots = new long[columnsCount * grownSlotWords];
+        final var grownColumnSlotFixtures = new short[columnsCount * grownSlotWords * Long.SIZE];
+        for (int column = 0; column < columnsCount; column++) {
+            System.arraycopy(columnSlots, column * slotWords, grownColumnSlots, column * grownSlotWords, slotWords);
+            System.arraycopy(columnSlotFixtures, column * slotWords * Long.SIZE, grownColumnSlotFixtures, column * grownSlotWords * Long.SIZE, slotWords * Long.SIZE);
+        }
+        columnSlots = grownColumnSlots;
+        columnSlotFixtures = grownColumnSlotFixtures;
+        slotColumns = Arrays.copyOf(slotColumns, grownSlotWords * Long.SIZE * columnWords);
+        slotBodies = Arrays.copyOf(slotBodies, grownSlotWords * Long.SIZE);
+        slotWords = grownSlotWords;
+    }
+
+    private static boolean isEmpty(long[] bits, int from, int words) {
+        for (int i = from; i < from + words; i++) {
+            if (bits[i] != 0) return false;
+        }
+        return true;
+    }
+}
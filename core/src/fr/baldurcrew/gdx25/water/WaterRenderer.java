@@ -4,130 +4,395 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.BufferUtils;
 import com.badlogic.gdx.utils.Disposable;
 import fr.baldurcrew.gdx25.CoreGame;
 
-import java.util.List;
+import java.nio.FloatBuffer;
 
 public class WaterRenderer implements Disposable {
 
     private final static String PROJECTION_MATRIX_UNIFORM_NAME = "u_projTrans";
+    private final static String TOP_COLOR_UNIFORM_NAME = "u_topColor";
+    private final static String BOTTOM_COLOR_UNIFORM_NAME = "u_bottomColor";
+    private final static String BOTTOM_Y_UNIFORM_NAME = "u_bottomY";
+    private final static String ORIGIN_X_UNIFORM_NAME = "u_originX";
+    private final static String SPACING_UNIFORM_NAME = "u_spacing";
+    private final static String HEIGHTS_UNIFORM_NAME = "u_heights";
+    private final static String SWELL_UNIFORM_NAME = "u_swell";
+    private final static String GRID_ATTRIBUTE_NAME = "a_grid";
+    /**
+     * GLSL sum of the base swell components at a world position, same as {@link SpectralSwell#heightAt(float)}.
+     */
+    private final static String SWELL_HEIGHT_FUNCTION = "uniform vec3 " + SWELL_UNIFORM_NAME + "[" + SpectralSwell.COMPONENTS_COUNT + "];" + "\n"
+        + "float swellHeight(float x)" + "\n" + "{" + "\n" + "   float height = 0.0;" + "\n"
+        + "   for (int c = 0; c < " + SpectralSwell.COMPONENTS_COUNT + "; c++)" + "\n" + "   {" + "\n"
+        + "      height += " + SWELL_UNIFORM_NAME + "[c].x * sin(" + SWELL_UNIFORM_NAME + "[c].y * x + " + SWELL_UNIFORM_NAME + "[c].z);" + "\n" + "   }" + "\n"
+        + "   return height;" + "\n" + "}" + "\n";
+    /**
+     * Vertex uniform vectors used by the displacement shader besides the heights and the swell components, a float array element may take a
+     * whole vector.
+     */
+    private final static int DISPLACEMENT_RESERVED_UNIFORM_VECTORS = 8;
+    private final static float BOTTOM_Y = -1f;
+    /// 2D position only
+    private final static int VALUES_PER_VERTEX = 2;
+    /**
+     * Rectangles of a water mesh chunk, its 2 * (CHUNK_RECTANGLES + 1) vertices must fit in short indices.
+     */
+    private final static int CHUNK_RECTANGLES = 2048;
+    /**
+     * Half height given to a chunk whose heights are not known yet, so that it is only culled horizontally.
+     */
+    private final static float UNKNOWN_HALF_HEIGHT = 1e4f;
 
     private final ShapeRenderer debugShapeBatch;
     private final ShaderProgram waterShaderProgram;
-    private final MeshAndBuffers waterMeshAndBuffers;
+    /**
+     * Shared by all the chunks, which have the same local indices.
+     */
+    private final int indexBufferHandle;
+    private final WaterMeshChunk[] waterMeshChunks;
+    private final float springsSpacing;
+    /**
+     * Null if the springs do not fit in the vertex uniforms, or if the shader did not compile.
+     */
+    private final ShaderProgram displacementShaderProgram;
+    private final Mesh displacementGrid;
+    private final float[] packedHeights;
+    /**
+     * Springs snapshot step of the heights uploaded to the displacement shader.
+     */
+    private long uploadedHeightsStep = -1;
 
 
     //TODO: TWEAK (MAYBE NOT, PARALLAX MIGHT BE ENOUGH ?)
     private Color topWaterColor = new Color(0f, 1f, 0.8f, 0.7f);
     private Color bottomWaterColor = new Color(0f, 0f, 0.4f, 1f);
+    private int uploadedBytes;
+    private int visibleChunksCount;
 
-    public WaterRenderer(int rectangleCount) {
+    /**
+     * @param springsCount   How many springs simulate the water surface
+     * @param springsSpacing Horizontal distance between two springs
+     * @param subdivisions   Fine samples per gap between two springs, same as the rendered heightfield
+     */
+    public WaterRenderer(int springsCount, float springsSpacing, int subdivisions) {
         debugShapeBatch = new ShapeRenderer();
         debugShapeBatch.setColor(0, 0.5f, 1, 1);
+        this.springsSpacing = springsSpacing;
+        this.packedHeights = new float[springsCount];
+        final int samplesCount = (springsCount - 1) * subdivisions + 1;
 
         waterShaderProgram = createWaterShader();
-        waterMeshAndBuffers = createWaterMeshAndBuffers(rectangleCount);
+        indexBufferHandle = createIndexBuffer(Math.min(CHUNK_RECTANGLES, samplesCount - 1));
+        // Neighbouring chunks both have the sample at their boundary
+        final int chunksCount = Math.max(1, (samplesCount - 1 + CHUNK_RECTANGLES - 1) / CHUNK_RECTANGLES);
+        waterMeshChunks = new WaterMeshChunk[chunksCount];
+        for (int c = 0; c < chunksCount; c++) {
+            final int from = c * CHUNK_RECTANGLES;
+            waterMeshChunks[c] = new WaterMeshChunk(from, Math.min(samplesCount, from + CHUNK_RECTANGLES + 1));
+        }
+
+        displacementShaderProgram = createDisplacementShader(springsCount, samplesCount);
+        if (displacementShaderProgram != null) {
+            final var gridVertices = SurfaceDisplacementPacking.buildGridVertices(springsCount, subdivisions);
+            final var gridIndices = SurfaceDisplacementPacking.buildGridIndices(samplesCount - 1);
+            displacementGrid = new Mesh(true, gridVertices.length / SurfaceDisplacementPacking.VALUES_PER_VERTEX, gridIndices.length,
+                new VertexAttribute(VertexAttributes.Usage.Generic, SurfaceDisplacementPacking.VALUES_PER_VERTEX, GRID_ATTRIBUTE_NAME));
+            displacementGrid.setVertices(gridVertices);
+            displacementGrid.setIndices(gridIndices);
+        } else {
+            displacementGrid = null;
+        }
     }
 
     private ShaderProgram createWaterShader() {
-        String vertexShader = "attribute vec4 a_position;" + "\n" + "attribute vec4 a_color;" + "\n" + "varying vec4 v_color;" + "\n" + "uniform mat4 " + PROJECTION_MATRIX_UNIFORM_NAME + ";" + "\n" + "void main()" + "\n" + "{" + "\n" + "   v_color = a_color;" + "\n" + "   gl_Position =  u_projTrans * vec4(a_position.xy, 0.0, 1.0);" + "\n" + "}" + "\n";
+        // The vertex role is derived from its height: the bottom vertices are all at the bottom height, the surface ones above it get the swell
+        String vertexShader = "attribute vec2 a_position;" + "\n" + "varying vec4 v_color;" + "\n" + "uniform mat4 " + PROJECTION_MATRIX_UNIFORM_NAME + ";" + "\n" + "uniform vec4 " + TOP_COLOR_UNIFORM_NAME + ";" + "\n" + "uniform vec4 " + BOTTOM_COLOR_UNIFORM_NAME + ";" + "\n" + "uniform float " + BOTTOM_Y_UNIFORM_NAME + ";" + "\n" + SWELL_HEIGHT_FUNCTION
+            + "void main()" + "\n" + "{" + "\n" + "   bool surface = a_position.y > " + BOTTOM_Y_UNIFORM_NAME + ";" + "\n"
+            + "   v_color = surface ? " + TOP_COLOR_UNIFORM_NAME + " : " + BOTTOM_COLOR_UNIFORM_NAME + ";" + "\n"
+            + "   gl_Position =  u_projTrans * vec4(a_position.x, surface ? a_position.y + swellHeight(a_position.x) : a_position.y, 0.0, 1.0);" + "\n" + "}" + "\n";
         String fragmentShader = "#ifdef GL_ES" + "\n" + "precision mediump float;" + "\n" + "#endif" + "\n" + "varying vec4 v_color;" + "\n" + "void main()                                  " + "\n" + "{                                            " + "\n" + "  gl_FragColor = v_color;" + "\n" + "}";
 
         return new ShaderProgram(vertexShader, fragmentShader);
     }
 
-    private MeshAndBuffers createWaterMeshAndBuffers(int rectCount) {
-        final int verticesCount = 4 * rectCount;
-        final int indicesCount = 6 * rectCount;
-        final var vertexPositionAttribute = VertexAttribute.Position();
-        final var vertexColorAttribute = VertexAttribute.ColorUnpacked();
-
-        final var waterMesh = new Mesh(false, true, verticesCount, indicesCount, new VertexAttributes(vertexPositionAttribute, vertexColorAttribute));
-
-        final int valuesPerVertex = vertexPositionAttribute.numComponents + vertexColorAttribute.numComponents;
-        final var waterVertexIndices = new short[indicesCount];
-        final var waterVerticesWithColor = new float[verticesCount * valuesPerVertex];
-
-        for (int i = 0; i < rectCount; i++) {
-            waterVertexIndices[i * 6 + 0] = (short) (i * 4 + 0);
-            waterVertexIndices[i * 6 + 1] = (short) (i * 4 + 1);
-            waterVertexIndices[i * 6 + 2] = (short) (i * 4 + 2);
-            waterVertexIndices[i * 6 + 3] = (short) (i * 4 + 2);
-            waterVertexIndices[i * 6 + 4] = (short) (i * 4 + 3);
-            waterVertexIndices[i * 6 + 5] = (short) (i * 4 + 0);
+    /**
+     * Shader placing the static grid vertices on the Catmull-Rom spline through the uploaded springs heights, same as {@link RenderHeightfield},
+     * plus the base swell.
+     *
+     * @return null if the displaced surface is not supported
+     */
+    private ShaderProgram createDisplacementShader(int springsCount, int samplesCount) {
+        final var maxVertexUniformVectors = BufferUtils.newIntBuffer(16);
+        Gdx.gl20.glGetIntegerv(GL20.GL_MAX_VERTEX_UNIFORM_VECTORS, maxVertexUniformVectors);
+        if (springsCount + DISPLACEMENT_RESERVED_UNIFORM_VECTORS + SpectralSwell.COMPONENTS_COUNT > maxVertexUniformVectors.get(0) || samplesCount * 2 > Short.MAX_VALUE) {
+            Gdx.app.log("Water", springsCount + " springs do not fit in the vertex uniforms, no shader displaced surface");
+            return null;
+        }
+
+        final String lastSpring = (springsCount - 1) + ".0";
+        String vertexShader = "attribute vec2 " + GRID_ATTRIBUTE_NAME + ";" + "\n" + "varying vec4 v_color;" + "\n" + "uniform mat4 " + PROJECTION_MATRIX_UNIFORM_NAME + ";" + "\n" + "uniform vec4 " + TOP_COLOR_UNIFORM_NAME + ";" + "\n" + "uniform vec4 " + BOTTOM_COLOR_UNIFORM_NAME + ";" + "\n" + "uniform float " + BOTTOM_Y_UNIFORM_NAME + ";" + "\n" + "uniform float " + ORIGIN_X_UNIFORM_NAME + ";" + "\n" + "uniform float " + SPACING_UNIFORM_NAME + ";" + "\n" + "uniform float " + HEIGHTS_UNIFORM_NAME + "[" + springsCount + "];" + "\n" + SWELL_HEIGHT_FUNCTION
+            + "float springHeight(float index)" + "\n" + "{" + "\n" + "   return " + HEIGHTS_UNIFORM_NAME + "[int(clamp(index, 0.0, " + lastSpring + "))];" + "\n" + "}" + "\n"
+            + "void main()" + "\n" + "{" + "\n"
+            + "   float i = floor(" + GRID_ATTRIBUTE_NAME + ".x);" + "\n" + "   float t = " + GRID_ATTRIBUTE_NAME + ".x - i;" + "\n" + "   float t2 = t * t;" + "\n" + "   float t3 = t2 * t;" + "\n"
+            + "   float x = " + ORIGIN_X_UNIFORM_NAME + " + " + GRID_ATTRIBUTE_NAME + ".x * " + SPACING_UNIFORM_NAME + ";" + "\n"
+            + "   float height = swellHeight(x) + 0.5 * ((-t3 + 2.0 * t2 - t) * springHeight(i - 1.0) + (3.0 * t3 - 5.0 * t2 + 2.0) * springHeight(i) + (-3.0 * t3 + 4.0 * t2 + t) * springHeight(i + 1.0) + (t3 - t2) * springHeight(i + 2.0));" + "\n"
+            + "   v_color = mix(" + BOTTOM_COLOR_UNIFORM_NAME + ", " + TOP_COLOR_UNIFORM_NAME + ", " + GRID_ATTRIBUTE_NAME + ".y);" + "\n"
+            + "   gl_Position =  u_projTrans * vec4(x, mix(" + BOTTOM_Y_UNIFORM_NAME + ", height, " + GRID_ATTRIBUTE_NAME + ".y), 0.0, 1.0);" + "\n" + "}" + "\n";
+        String fragmentShader = "#ifdef GL_ES" + "\n" + "precision mediump float;" + "\n" + "#endif" + "\n" + "varying vec4 v_color;" + "\n" + "void main()                                  " + "\n" + "{                                            " + "\n" + "  gl_FragColor = v_color;" + "\n" + "}";
+
+        final var shader = new ShaderProgram(vertexShader, fragmentShader);
+        if (!shader.isCompiled()) {
+            Gdx.app.log("Water", "Shader displaced surface not supported: " + shader.getLog());
+            shader.dispose();
+            return null;
         }
-        waterMesh.setIndices(waterVertexIndices);
+        return shader;
+    }
 
-        return new MeshAndBuffers(waterMesh, valuesPerVertex, waterVertexIndices, waterVerticesWithColor);
+    /**
+     * One bottom and one top vertex per sample, shared by the rectangles on both sides of the sample. The indices never change.
+     */
+    private static int createIndexBuffer(int rectCount) {
+        final var indices = SurfaceDisplacementPacking.buildGridIndices(rectCount);
+        final int indicesCount = indices.length;
+        final var waterVertexIndices = BufferUtils.newShortBuffer(indicesCount);
+        waterVertexIndices.put(indices);
+        waterVertexIndices.flip();
+
+        final int handle = Gdx.gl20.glGenBuffer();
+        Gdx.gl20.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, handle);
+        Gdx.gl20.glBufferData(GL20.GL_ELEMENT_ARRAY_BUFFER, indicesCount * Short.BYTES, waterVertexIndices, GL20.GL_STATIC_DRAW);
+        Gdx.gl20.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, 0);
+        return handle;
     }
 
-    public void render(OrthographicCamera camera, List<Spring> springs) {
+    /**
+     * @param springs     Springs simulating the water surface, drawn in debug mode
+     * @param surface     Fine heightfield of the water surface, rendered as the water mesh
+     * @param changedFrom Index of the first surface sample that may have moved since the last render
+     * @param changedTo   Index (exclusive) of the last surface sample that may have moved since the last render. The water mesh is only regenerated
+     *                    for the changed samples, once they are in the viewport.
+     */
+    public void render(OrthographicCamera camera, SpringsSnapshot springs, RenderHeightfield surface, int changedFrom, int changedTo) {
         if (CoreGame.debugMode) {
             debugShapeBatch.setProjectionMatrix(camera.combined);
             debugShapeBatch.begin(ShapeRenderer.ShapeType.Line);
             for (int i = 0; i < springs.size() - 1; i++) {
-                final var leftSpring = springs.get(i);
-                final var rightSpring = springs.get(i + 1);
-                debugShapeBatch.line(new Vector2(leftSpring.getX(), 0f), new Vector2(leftSpring.getX(), leftSpring.getHeight()));
+                debugShapeBatch.line(springs.getX(i), 0f, springs.getX(i), springs.getHeight(i) + springs.getSwellHeight(springs.getX(i)));
             }
             debugShapeBatch.end();
         }
 
-        generateWaterMesh(waterMeshAndBuffers, springs);
+        for (final var chunk : waterMeshChunks) {
+            chunk.markChanged(changedFrom, changedTo);
+        }
 
-        if (CoreGame.debugEnableWaterRendering) {
+        uploadedBytes = 0;
+        visibleChunksCount = 0;
+        if (isSurfaceDisplacedByShader()) {
+            renderDisplacedSurface(camera, springs);
+        } else if (CoreGame.debugEnableWaterRendering) {
             Gdx.gl20.glEnable(GL20.GL_BLEND);
             waterShaderProgram.bind();
             waterShaderProgram.setUniformMatrix(PROJECTION_MATRIX_UNIFORM_NAME, camera.combined);
-            waterMeshAndBuffers.mesh.render(waterShaderProgram, GL30.GL_TRIANGLES);
+            waterShaderProgram.setUniformf(TOP_COLOR_UNIFORM_NAME, topWaterColor);
+            waterShaderProgram.setUniformf(BOTTOM_COLOR_UNIFORM_NAME, bottomWaterColor);
+            waterShaderProgram.setUniformf(BOTTOM_Y_UNIFORM_NAME, BOTTOM_Y);
+            setSwellUniform(waterShaderProgram, springs);
+            Gdx.gl20.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, indexBufferHandle);
+            for (final var chunk : waterMeshChunks) {
+                if (!chunk.isVisible(camera, surface, springs.getSwellMaxHeight())) continue;
+
+                visibleChunksCount++;
+                if (chunk.changedFrom < chunk.changedTo) {
+                    uploadedBytes += chunk.generate(surface);
+                }
+                chunk.render(waterShaderProgram);
+            }
+            Gdx.gl20.glBindBuffer(GL20.GL_ELEMENT_ARRAY_BUFFER, 0);
             Gdx.gl20.glDisable(GL20.GL_BLEND);
         }
     }
 
-    private void generateWaterMesh(MeshAndBuffers waterMeshAndBuffers, List<Spring> springs) {
-        final var verticesWithColor = waterMeshAndBuffers.verticesWithColor;
-        final var valuesPerVertex = waterMeshAndBuffers.valuesPerVertex;
-
-        // TODO Cull springs outside of the viewport
-        for (int i = 0; i < springs.size() - 1; i++) {
-            final var leftSpring = springs.get(i);
-            final var rightSpring = springs.get(i + 1);
-
-            int rectangleOffsetInArray = i * waterMeshAndBuffers.valuesPerVertex * 4;
-
-            // 0 1 2  2 3 0
-            //2-1       2
-            // \|  and  |\
-            //  0       3-0
-            fillVertexArray(verticesWithColor, bottomWaterColor, rightSpring.getX(), -1f, rectangleOffsetInArray);
-            fillVertexArray(verticesWithColor, topWaterColor, rightSpring.getX(), rightSpring.getHeight(), rectangleOffsetInArray + valuesPerVertex);
-            fillVertexArray(verticesWithColor, topWaterColor, leftSpring.getX(), leftSpring.getHeight(), rectangleOffsetInArray + valuesPerVertex * 2);
-            fillVertexArray(verticesWithColor, bottomWaterColor, leftSpring.getX(), -1f, rectangleOffsetInArray + valuesPerVertex * 3);
+    /**
+     * @return true if the next render draws the shader displaced surface, which does not read the heightfield
+     */
+    public boolean isSurfaceDisplacedByShader() {
+        return CoreGame.debugEnableWaterRendering && CoreGame.debugEnableShaderDisplacedWater && displacementShaderProgram != null;
+    }
+
+    /**
+     * Only uploads the springs heights, the grid never changes.
+     */
+    private void renderDisplacedSurface(OrthographicCamera camera, SpringsSnapshot springs) {
+        Gdx.gl20.glEnable(GL20.GL_BLEND);
+        displacementShaderProgram.bind();
+        displacementShaderProgram.setUniformMatrix(PROJECTION_MATRIX_UNIFORM_NAME, camera.combined);
+        displacementShaderProgram.setUniformf(TOP_COLOR_UNIFORM_NAME, topWaterColor);
+        displacementShaderProgram.setUniformf(BOTTOM_COLOR_UNIFORM_NAME, bottomWaterColor);
+        displacementShaderProgram.setUniformf(BOTTOM_Y_UNIFORM_NAME, BOTTOM_Y);
+        displacementShaderProgram.setUniformf(ORIGIN_X_UNIFORM_NAME, springs.getX(0));
+        displacementShaderProgram.setUniformf(SPACING_UNIFORM_NAME, springsSpacing);
+        setSwellUniform(displacementShaderProgram, springs);
+        if (springs.getStep() != uploadedHeightsStep) {
+            SurfaceDisplacementPacking.packHeights(springs, packedHeights);
+            displacementShaderProgram.setUniform1fv(HEIGHTS_UNIFORM_NAME, packedHeights, 0, packedHeights.length);
+            uploadedHeightsStep = springs.getStep();
+            uploadedBytes += packedHeights.length * Float.BYTES;
         }
-        waterMeshAndBuffers.mesh.setVertices(verticesWithColor);
+        displacementGrid.render(displacementShaderProgram, GL20.GL_TRIANGLES);
+        Gdx.gl20.glDisable(GL20.GL_BLEND);
+    }
+
+    /**
+     * The swell moves every step but only takes a few uniforms, the springs heights and the water mesh do not depend on it.
+     */
+    private static void setSwellUniform(ShaderProgram shader, SpringsSnapshot springs) {
+        final float[] components = springs.getSwellComponents();
+        shader.setUniform3fv(SWELL_UNIFORM_NAME, components, 0, components.length);
+    }
+
+    /**
+     * @return the vertex bytes uploaded by the last render, or the heights bytes with the shader displaced surface
+     */
+    public int getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    /**
+     * @return the water mesh chunks in the viewport during the last render
+     */
+    public int getVisibleChunksCount() {
+        return visibleChunksCount;
     }
 
-    private void fillVertexArray(float[] vertexArray, Color color, float x, float y, int vertexOffsetInArray) {
-        vertexArray[vertexOffsetInArray] = x;
-        vertexArray[vertexOffsetInArray + 1] = y;
-        vertexArray[vertexOffsetInArray + 2] = 0; // z position
-        vertexArray[vertexOffsetInArray + 3] = color.r;
-        vertexArray[vertexOffsetInArray + 4] = color.g;
-        vertexArray[vertexOffsetInArray + 5] = color.b;
-        vertexArray[vertexOffsetInArray + 6] = color.a;
+    public int getChunksCount() {
+        return waterMeshChunks.length;
     }
 
     @Override
     public void dispose() {
-        waterMeshAndBuffers.mesh.dispose();
+        for (final var chunk : waterMeshChunks) {
+            Gdx.gl20.glDeleteBuffer(chunk.vertexBufferHandle);
+        }
+        Gdx.gl20.glDeleteBuffer(indexBufferHandle);
         waterShaderProgram.dispose();
+        if (displacementShaderProgram != null) {
+            displacementShaderProgram.dispose();
+            displacementGrid.dispose();
+        }
     }
 
-    private record MeshAndBuffers(Mesh mesh,
-                                  int valuesPerVertex,
-                                  short[] vertexIndices,
-                                  float[] verticesWithColor) {
+    /**
+     * Part of the water mesh with its own vertex buffer object, drawn and regenerated only when it is in the viewport.
+     * The buffer objects are handled directly instead of through a {@link Mesh}: a mesh uploads all its vertices whenever any of them changes.
+     */
+    private static class WaterMeshChunk {
+        private final int vertexBufferHandle;
+        /**
+         * Flattened (x, y) of the vertices, in the same layout as the vertex buffer object.
+         */
+        private final FloatBuffer vertices;
+        private final int fromSample;
+        /// Exclusive
+        private final int toSample;
+        /**
+         * Samples changed since the chunk was last generated, everything at first.
+         */
+        private int changedFrom;
+        private int changedTo;
+        /**
+         * Highest sample ever generated, a conservative bound of the chunk height.
+         */
+        private float maxY = BOTTOM_Y;
+
+        private WaterMeshChunk(int fromSample, int toSample) {
+            this.fromSample = fromSample;
+            this.toSample = toSample;
+            this.changedFrom = fromSample;
+            this.changedTo = toSample;
+            this.vertices = BufferUtils.newFloatBuffer((toSample - fromSample) * 2 * VALUES_PER_VERTEX);
+
+            // Allocated empty, the whole chunk is generated when first visible
+            vertexBufferHandle = Gdx.gl20.glGenBuffer();
+            Gdx.gl20.glBindBuffer(GL20.GL_ARRAY_BUFFER, vertexBufferHandle);
+            Gdx.gl20.glBufferData(GL20.GL_ARRAY_BUFFER, vertices.capacity() * Float.BYTES, null, GL20.GL_DYNAMIC_DRAW);
+            Gdx.gl20.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+        }
+
+        private void markChanged(int from, int to) {
+            final int clippedFrom = Math.max(from, fromSample);
+            final int clippedTo = Math.min(to, toSample);
+            if (clippedFrom >= clippedTo) return;
+
+            if (changedFrom >= changedTo) {
+                changedFrom = clippedFrom;
+                changedTo = clippedTo;
+            } else {
+                changedFrom = Math.min(changedFrom, clippedFrom);
+                changedTo = Math.max(changedTo, clippedTo);
+            }
+        }
+
+        /**
+         * @param swellMaxHeight Largest height the shader adds to the surface vertices
+         */
+        private boolean isVisible(OrthographicCamera camera, RenderHeightfield surface, float swellMaxHeight) {
+            final float minX = surface.getX(fromSample);
+            final float maxX = surface.getX(toSample - 1);
+            // The heights of a changed chunk are only known once generated
+            final float halfHeight = changedFrom < changedTo ? UNKNOWN_HALF_HEIGHT : (maxY + swellMaxHeight - BOTTOM_Y) * 0.5f;
+            final float centerY = changedFrom < changedTo ? BOTTOM_Y : BOTTOM_Y + halfHeight;
+            return camera.frustum.boundsInFrustum((minX + maxX) * 0.5f, centerY, 0f, (maxX - minX) * 0.5f, halfHeight, 0f);
+        }
+
+        /**
+         * Writes the changed samples straight into the vertices buffer, and uploads only them.
+         *
+         * @return the bytes uploaded
+         */
+        private int generate(RenderHeightfield surface) {
+            for (int i = changedFrom; i < changedTo; i++) {
+                final float x = surface.getX(i);
+                final int bottomOffsetInBuffer = (i - fromSample) * 2 * VALUES_PER_VERTEX;
+                final int topOffsetInBuffer = bottomOffsetInBuffer + VALUES_PER_VERTEX;
+                vertices.put(bottomOffsetInBuffer, x);
+                vertices.put(bottomOffsetInBuffer + 1, BOTTOM_Y);
+                vertices.put(topOffsetInBuffer, x);
+                vertices.put(topOffsetInBuffer + 1, surface.getHeight(i));
+                maxY = Math.max(maxY, surface.getHeight(i));
+            }
+
+            final int fromInBuffer = (changedFrom - fromSample) * 2 * VALUES_PER_VERTEX;
+            final int toInBuffer = (changedTo - fromSample) * 2 * VALUES_PER_VERTEX;
+            final int bytes = (toInBuffer - fromInBuffer) * Float.BYTES;
+            vertices.limit(toInBuffer);
+            vertices.position(fromInBuffer);
+            Gdx.gl20.glBindBuffer(GL20.GL_ARRAY_BUFFER, vertexBufferHandle);
+            Gdx.gl20.glBufferSubData(GL20.GL_ARRAY_BUFFER, fromInBuffer * Float.BYTES, bytes, vertices);
+            Gdx.gl20.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+            vertices.clear();
+
+            changedFrom = toSample;
+            changedTo = fromSample;
+            return bytes;
+        }
+
+        /**
+         * The shared index buffer must be bound.
+         */
+        private void render(ShaderProgram shader) {
+            Gdx.gl20.glBindBuffer(GL20.GL_ARRAY_BUFFER, vertexBufferHandle);
+            shader.enableVertexAttribute(ShaderProgram.POSITION_ATTRIBUTE);
+            shader.setVertexAttribute(ShaderProgram.POSITION_ATTRIBUTE, VALUES_PER_VERTEX, GL20.GL_FLOAT, false, 0, 0);
+
+            Gdx.gl20.glDrawElements(GL20.GL_TRIANGLES, 6 * (toSample - fromSample - 1), GL20.GL_UNSIGNED_SHORT, 0);
+
+            shader.disableVertexAttribute(ShaderProgram.POSITION_ATTRIBUTE);
+            Gdx.gl20.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+        }
     }
 }
@@ -1,44 +1,117 @@
 package fr.baldurcrew.gdx25.water;
 
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.math.GeometryUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import fr.baldurcrew.gdx25.Constants;
 import fr.baldurcrew.gdx25.CoreGame;
 import fr.baldurcrew.gdx25.Difficulty;
+import fr.baldurcrew.gdx25.physics.ContactEvent;
+import fr.baldurcrew.gdx25.physics.BodyUserData;
 import fr.baldurcrew.gdx25.physics.ContactHandler;
-import fr.baldurcrew.gdx25.physics.FixtureContact;
+import fr.baldurcrew.gdx25.utils.PolygonClipper;
 import fr.baldurcrew.gdx25.utils.Range;
-import fr.baldurcrew.gdx25.utils.Utils;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class WaterSimulation implements Disposable, ContactHandler {
 
     /**
-     * All the springs simulating the water surface. Fixed size and content during execution.
+     * Below this, the accumulated force is too small to carry the accumulated torque through its application point.
      */
-    private final ArrayList<Spring> springs;
+    private static final float MIN_AGGREGATED_FORCE_SQUARED = 1e-6f;
     /**
-     * Sublist view of the springs list, containing the springs that are used for the physical simulation.
+     * The water fixtures margin covering the base swell grows by steps, so that the fixtures are not all reshaped whenever the swell amplitudes
+     * change.
      */
-    private final List<Spring> physicalSpringsSublist;
+    private static final float SWELL_MARGIN_STEP = 0.25f;
+
+    /**
+     * All the springs simulating the water surface. Fixed size during execution.
+     */
+    private final SpringStore springs;
+    private final FixedPointSprings fixedPointSprings;
+    /**
+     * Springs receiving the same disturbances but always propagated with the explicit passes, to compare them with the current propagation
+     * when enabled.
+     */
+    private final SpringStore explicitSprings;
+    /**
+     * Springs updated with the scalar kernel from the same state as the others, to check the provided kernel bit for bit when enabled.
+     */
+    private final SpringStore scalarKernelSprings;
+    private final SpringsKernel springsKernel;
+    private final ParallelSpringsSolver parallelSolver;
     private final Body waterBody;
+    /**
+     * Water surface rendered, finer than the springs.
+     */
+    private final RenderHeightfield renderHeightfield;
+    private final SpringsSnapshots snapshots;
+    private final SpectralSwell swell;
+    private final OceanPager pager;
     private final WaterRenderer renderer;
+    /**
+     * Own copy of the simulation range, moved along X when the springs window scrolls.
+     */
     private final Range waterRange;
-    private final float springsSpacing;
     /**
-     * Dynamic set of fixtures in contact with the water fixtures.
+     * Fixtures in contact with the water fixtures.
+     */
+    private final WaterOccupancy occupancy;
+    /**
+     * Current physical representation of the water.
+     */
+    private final WaterFixtures waterFixtures;
+    /**
+     * Buoyancy computed from the springs, used instead of the water fixtures when enabled.
+     */
+    private final HeightfieldBuoyancy heightfieldBuoyancy;
+    private final Consumer<Body> immersionForcesApplier = this::applyImmersionForces;
+    private final BiConsumer<Fixture, Body> immersedBodyApplier = this::applyImmersedBody;
+    private final PolygonClipper clipper = new PolygonClipper();
+    private final SubmergedPolygonCache submergedPolygons;
+    private final Vector2 force = new Vector2();
+    private final Vector2 point = new Vector2();
+    private final Vector2 edge = new Vector2();
+    private final Vector2 velocity = new Vector2();
+    /**
+     * Forces accumulator of each body that was ever immersed. Box2D bodies are pooled, an accumulator holds no state from one update to another.
+     */
+    private final HashMap<Body, BodyForces> bodyForces = new HashMap<>();
+    private final Array<BodyForces> accumulatingBodyForces = new Array<>();
+    private float gravityX;
+    private float gravityY;
+    private float waterVelocityX;
+    private float waterVelocityY;
+    /**
+     * Box2D force calls made by the last update.
+     */
+    private int forceCallsCount;
+    private final float[] queryPosition = new float[1];
+    private final float[] queryHeight = new float[1];
+    /**
+     * Water fixture polygon clipped for buoyancy, base swell included.
      */
-    private final Set<FixtureContact> fixtureContacts;
+    private final float[] swelledPolygon = new float[WaterFixtures.MAX_POLYGON_VERTICES * 2];
+    private float swellAmplitude;
+    private float chopAmplitude;
     /**
-     * Current physical representation of the water. Fixed size during execution.
+     * Springs that may have moved since the last published snapshot, the whole springs at first.
      */
-    private final Fixture[] waterFixtures;
+    private int unpublishedChangedFrom;
+    private int unpublishedChangedTo;
+    /**
+     * Step of the last snapshot upsampled to the rendered heightfield, 0 before the first upsampling.
+     */
+    private long lastUpsampledStep;
+    private boolean comparingPropagation;
+    private float propagationMaxHeightDifference;
+    private int springsKernelMismatches;
 
     // TODO Tweak
     private int wavesPropagationPasses = 4; // 8
@@ -47,34 +120,65 @@ public class WaterSimulation implements Disposable, ContactHandler {
     private float springsDampeningFactor = 0.025f;
     private float baseWaterLevel = 5f;
     private float waterDensity = 1.0f;
+    private int fixturesLodMaxSprings = 4;
+    private float fixturesLodDistanceStep = 3f;
     private float fakeWaterVelocityX = Difficulty.FAKE_WATER_VELOCITY_X_AT_MIN_SCALING;
     private float fakeWaterVelocityY = Difficulty.FAKE_WATER_VELOCITY_Y_AT_MIN_SCALING;
+    /**
+     * Springs moving less than this (height from the base level and velocity) are put to sleep.
+     */
+    private float restEpsilon = 0.0005f;
+    private int absorbingBoundarySprings = 6;
+    private float absorbingBoundaryStrength = 0.1f;
+    private int pagingChunkSprings = 16;
+    private int frozenChunksCapacity = 64;
+    private float submergedPositionTolerance = 0.002f;
+    private float submergedAngleTolerance = 0.002f;
+    private float submergedHeightTolerance = 0.002f;
+    private int parallelSpringsChunkSize = 2048;
+    private int parallelSpringsThreshold = 16384;
 
 
     /**
      * @param world                  Physic world
-     * @param springsCount           How many springs in the simulation
+     * @param springsCount           How many springs in the simulation, a multiple of the water chunks springs count (16)
+     * @param renderSubdivisions     Rendered samples per gap between two springs, the rendered surface is upsampled from the springs
      * @param simulationRangeX       Range of the water simulation, on the X axis
      * @param physicSimulationRangeX Sub-range of the water simulation where physic is simulated (buoyancy, drag, waves, ...), on the X axis
+     * @param chunkRunner            Runner of the parallel springs solver chunks
+     * @param springsKernel          Arithmetic of the springs update and propagation, when the provided kernel is enabled
      */
-    public WaterSimulation(World world, int springsCount, Range simulationRangeX, Range physicSimulationRangeX) {
-        this.waterRange = simulationRangeX;
-        this.springs = new ArrayList<>(springsCount);
-        this.fixtureContacts = new HashSet<>();
-
-        springsSpacing = waterRange.extent / (springsCount - 1);
-        for (int i = 0; i < springsCount; i++) {
-            final float x = waterRange.from + i * springsSpacing;
-            springs.add(new Spring(x, baseWaterLevel));
-        }
-
-        renderer = new WaterRenderer(springsCount - 1);
+    public WaterSimulation(World world, int springsCount, int renderSubdivisions, Range simulationRangeX, Range physicSimulationRangeX, ChunkRunner chunkRunner, SpringsKernel springsKernel) {
+        this.waterRange = Range.buildRange(simulationRangeX.from, simulationRangeX.to);
+        this.occupancy = new WaterOccupancy(springsCount);
+
+        final float springsSpacing = waterRange.extent / (springsCount - 1);
+        springs = new SpringStore(waterRange.from, springsSpacing, springsCount, baseWaterLevel);
+        fixedPointSprings = new FixedPointSprings(springs);
+        explicitSprings = new SpringStore(waterRange.from, springsSpacing, springsCount, baseWaterLevel);
+        scalarKernelSprings = new SpringStore(waterRange.from, springsSpacing, springsCount, baseWaterLevel);
+        this.springsKernel = springsKernel;
+        updateAbsorbingBoundaries();
+        swell = new SpectralSwell(0L);
+        springs.setSwell(swell);
+        pager = new OceanPager(springs, pagingChunkSprings, frozenChunksCapacity);
+        unpublishedChangedFrom = 0;
+        unpublishedChangedTo = springsCount;
+        snapshots = new SpringsSnapshots(springsCount);
+        parallelSolver = new ParallelSpringsSolver(chunkRunner, springs, parallelSpringsChunkSize, parallelSpringsThreshold);
+
+        renderHeightfield = new RenderHeightfield(springsCount, springsSpacing, renderSubdivisions);
+        renderer = new WaterRenderer(springsCount, springsSpacing, renderSubdivisions);
         waterBody = createWaterBody(world, new Vector2(simulationRangeX.getCenter(), baseWaterLevel / 2f));
-        final int startIndex = Math.round(springs.size() * waterRange.percentage(physicSimulationRangeX.from));
-        final int endIndex = Math.round(springs.size() * waterRange.percentage(physicSimulationRangeX.to));
-        physicalSpringsSublist = springs.subList(startIndex, endIndex);
-        waterFixtures = new Fixture[(physicalSpringsSublist.size())];
-        generateFixtures(waterFixtures, waterBody, physicalSpringsSublist, springsSpacing);
+        final int physicalSpringsFrom = Math.round(springs.size() * waterRange.percentage(physicSimulationRangeX.from));
+        final int physicalSpringsTo = Math.round(springs.size() * waterRange.percentage(physicSimulationRangeX.to));
+        waterFixtures = new WaterFixtures(waterBody, springs, physicalSpringsFrom, physicalSpringsTo, springsSpacing, waterDensity, fixturesLodMaxSprings, fixturesLodDistanceStep);
+        submergedPolygons = new SubmergedPolygonCache(clipper, submergedPositionTolerance, submergedAngleTolerance, submergedHeightTolerance);
+        heightfieldBuoyancy = new HeightfieldBuoyancy(springs, physicalSpringsFrom, physicalSpringsTo, clipper, submergedPolygons);
+        if (!CoreGame.debugEnableHeightfieldBuoyancy) {
+            waterFixtures.update(false, CoreGame.debugEnableAdaptiveWaterLod, 0, springsCount);
+        }
+        publishSprings();
     }
 
     private Body createWaterBody(World world, Vector2 center) {
@@ -83,167 +187,407 @@ public class WaterSimulation implements Disposable, ContactHandler {
         bodyDef.position.set(center);
 
         final var body = world.createBody(bodyDef);
-        body.setUserData(this);
+        body.setUserData(new BodyUserData(this));
 
         return body;
     }
 
-    private void destroyFixtures() {
-        for (Fixture f : this.waterFixtures) {
-            waterBody.destroyFixture(f);
-        }
+    public void handleContactBegin(ContactEvent contact) {
+        final var waterPolygon = (WaterFixtures.SurfacePolygon) contact.getHandledFixture().getUserData();
+        occupancy.add(waterPolygon.getColumn(), contact.getHandledFixture(), contact.getOtherFixture());
+    }
+
+    public void handleContactEnd(ContactEvent contact) {
+        final var waterPolygon = (WaterFixtures.SurfacePolygon) contact.getHandledFixture().getUserData();
+        occupancy.remove(waterPolygon.getColumn(), contact.getOtherFixture());
+    }
+
+    @Override
+    public void handlePreSolve(ContactEvent contact) {
+        // Nothing to do here
     }
 
-    private void generateFixtures(Fixture[] waterFixtures, Body body, List<Spring> springs, float springsSpacing) {
-        for (int i = 0; i < springs.size(); i++) {
-            final var waterPolygon = new PolygonShape();
+    public void update() {
+        forceCallsCount = 0;
+        // Read once per update instead of once per force
+        final var gravity = waterBody.getWorld().getGravity();
+        gravityX = gravity.x;
+        gravityY = gravity.y;
+        final var waterVelocity = waterBody.getLinearVelocity();
+        waterVelocityX = waterVelocity.x;
+        waterVelocityY = waterVelocity.y;
+        submergedPolygons.setEnabled(CoreGame.debugEnableSubmergedPolygonCache);
+        submergedPolygons.begin();
 
-            // TODO If needed, could group multiple springs together to form 1 fixture to reduce physics simulation stress
-            final var spring = springs.get(i);
-            final var halfSpringSpacing = springsSpacing / 2f;
-            final var halfSpringHeight = spring.getHeight() / 2f;
-            waterPolygon.setAsBox(halfSpringSpacing, halfSpringHeight, new Vector2(spring.getX() + halfSpringSpacing - body.getWorldCenter().x, halfSpringHeight - body.getWorldCenter().y), 0);
+        // TODO Should depend on Constants.TIME_STEP
+        if (!CoreGame.debugEnableWaterSleep) {
+            springs.wakeAll();
+        }
+        // Springs outside of the active range are at rest and are not updated
+        int changedFrom = springs.getActiveFrom();
+        int changedTo = springs.getActiveTo();
 
-            final var fixtureDef = new FixtureDef();
-            fixtureDef.shape = waterPolygon;
-            fixtureDef.isSensor = true;
-            fixtureDef.density = waterDensity;
-            waterFixtures[i] = body.createFixture(fixtureDef);
+        updateSprings();
+        // Evaluated where the surface is read, the springs never change because of it
+        swell.advance(swellAmplitude, chopAmplitude);
 
-            waterPolygon.dispose();
+        if (CoreGame.debugEnableWaterSleep) {
+            springs.updateActiveRange(restEpsilon, baseWaterLevel);
+        }
+        if (changedFrom < changedTo) {
+            unpublishedChangedFrom = Math.min(unpublishedChangedFrom, changedFrom);
+            unpublishedChangedTo = Math.max(unpublishedChangedTo, changedTo);
         }
+        publishSprings();
+
+        if (CoreGame.debugEnableHeightfieldBuoyancy) {
+            waterFixtures.clear();
+            heightfieldBuoyancy.update(immersionForcesApplier);
+        } else {
+            updateImmersedFixtures();
+
+            if (!CoreGame.debugEnableWaterFixturesReshaping) {
+                occupancy.clear();
+            }
+            waterFixtures.setSurfaceMargin((float) Math.ceil(swell.getMaxHeight() / SWELL_MARGIN_STEP) * SWELL_MARGIN_STEP);
+            waterFixtures.update(CoreGame.debugEnableWaterFixturesReshaping, CoreGame.debugEnableAdaptiveWaterLod, changedFrom, changedTo);
+        }
+        submergedPolygons.end();
+        applyAccumulatedForces();
     }
 
-    public void handleContactBegin(FixtureContact contact) {
-        fixtureContacts.add(contact);
+    private void updateImmersedFixtures() {
+        occupancy.forEach(immersedBodyApplier);
     }
 
-    public void handleContactEnd(FixtureContact contact) {
-        fixtureContacts.remove(contact);
+    /**
+     * Each fixture of the body is clipped, the ones outside of the water fixture have an empty intersection.
+     */
+    private void applyImmersedBody(Fixture waterFixture, Body immersedBody) {
+        final var waterPolygon = (WaterFixtures.SurfacePolygon) waterFixture.getUserData();
+        final var vertices = swellPolygon(waterPolygon);
+        final var immersedFixtures = immersedBody.getFixtureList();
+        for (int i = 0; i < immersedFixtures.size; i++) {
+            if (submergedPolygons.clip(waterPolygon, vertices, waterPolygon.getVertexCount(), immersedFixtures.get(i)) > 0) {
+                applyImmersionForces(immersedBody);
+            }
+        }
     }
 
-    @Override
-    public void handlePreSolve(Contact contact, FixtureContact fixtures) {
-        // Nothing to do here
+    /**
+     * @return the vertices of the water fixture polygon with the base swell added to its surface vertices, the ones after the 2 bottom vertices
+     */
+    private float[] swellPolygon(WaterFixtures.SurfacePolygon waterPolygon) {
+        final float[] vertices = waterPolygon.getVertices();
+        if (swell.getMaxHeight() == 0f) return vertices;
+
+        final int floats = waterPolygon.getVertexCount() * 2;
+        System.arraycopy(vertices, 0, swelledPolygon, 0, floats);
+        for (int i = 4; i < floats; i += 2) {
+            swelledPolygon[i + 1] += swell.heightAt(vertices[i]);
+        }
+        return swelledPolygon;
     }
 
-    public void update() {
-        // TODO Should depend on Constants.TIME_STEP
-        updateSprings();
-        updateImmersedFixtures();
+    /**
+     * Applies buoyancy, drag and lift to a body, from its intersection with the water available from the submerged polygons cache.
+     */
+    private void applyImmersionForces(Body immersedBody) {
+        final var forces = getBodyForces(immersedBody);
+        final float[] intersectionVertices = submergedPolygons.getVertices();
+        final int intersectionVertexCount = submergedPolygons.getVertexCount();
+
+        // Apply buoyancy
+        final var displacedMass = waterDensity * submergedPolygons.getArea();
+        applyForce(forces, displacedMass * -gravityX, displacedMass * -gravityY, submergedPolygons.getCentroidX(), submergedPolygons.getCentroidY());
+
+
+        // Apply drag separately for each polygon edge
+        for (int i = 0; i < intersectionVertexCount; i++) {
+            final int next = (i + 1) % intersectionVertexCount;
+            final float x0 = intersectionVertices[i * 2];
+            final float y0 = intersectionVertices[i * 2 + 1];
+            final float x1 = intersectionVertices[next * 2];
+            final float y1 = intersectionVertices[next * 2 + 1];
+            point.set((x0 + x1) * 0.5f, (y0 + y1) * 0.5f);
+
+            // Find relative velocity between object and fluid at edge midpoint
+            final Vector2 velDir = forces.getVelocityAt(point, velocity);
+            if (CoreGame.debugEnableFakeWaterVelocity) {
+                velDir.sub(fakeWaterVelocityX, fakeWaterVelocityY);
+            } else {
+                velDir.sub(waterVelocityX, waterVelocityY);
+            }
 
-        fixtureContacts.clear();
-        destroyFixtures();
-        generateFixtures(waterFixtures, waterBody, physicalSpringsSublist, springsSpacing);
-    }
+            final float vel = velDir.len();
+            velDir.nor();
 
-    private void updateImmersedFixtures() {
-        this.fixtureContacts.forEach(contact -> {
-            final var waterFixture = contact.handledFixture();
-            final var immersedFixture = contact.otherFixture();
-
-            final float fluidDensity = waterFixture.getDensity();
-
-            final var intersectionVertices = Utils.getIntersection(waterFixture, immersedFixture);
-            if (intersectionVertices != null && !intersectionVertices.isEmpty()) {
-                final var world = immersedFixture.getBody().getWorld();
-
-                final var intersectionPolygon = Utils.getPolygon(intersectionVertices);
-                final float intersectionArea = intersectionPolygon.area();
-                final var intersectionCentroid = GeometryUtils.polygonCentroid(intersectionPolygon.getVertices(), 0, intersectionPolygon.getVertices().length, new Vector2());
-
-                // Apply buoyancy
-                final var displacedMass = fluidDensity * intersectionArea;
-                Vector2 buoyancyForce = new Vector2(displacedMass * -world.getGravity().x, displacedMass * -world.getGravity().y);
-                immersedFixture.getBody().applyForce(buoyancyForce, intersectionCentroid, true);
-
-
-                // Apply drag separately for each polygon edge
-                for (int i = 0; i < intersectionVertices.size(); i++) {
-                    final Vector2 v0 = intersectionVertices.get(i);
-                    final Vector2 v1 = intersectionVertices.get((i + 1) % intersectionVertices.size());
-                    final Vector2 midPoint = v0.cpy().add(v1).scl(0.5f);
-
-                    // Find relative velocity between object and fluid at edge midpoint
-                    Vector2 velDir;
-                    if (CoreGame.debugEnableFakeWaterVelocity) {
-                        velDir = immersedFixture.getBody().getLinearVelocityFromWorldPoint(midPoint).sub(new Vector2(fakeWaterVelocityX, fakeWaterVelocityY));
-                    } else {
-                        velDir = immersedFixture.getBody().getLinearVelocityFromWorldPoint(midPoint).sub(waterFixture.getBody().getLinearVelocityFromWorldPoint(midPoint));
-                    }
-
-                    final float vel = velDir.len();
-                    velDir.nor();
-
-                    final Vector2 edge = v1.cpy().sub(v0);
-                    final float edgeLength = edge.len();
-                    edge.nor();
-
-                    final Vector2 normal = new Vector2(edge.y, -edge.x);
-                    final float dragDot = normal.dot(velDir);
-
-                    if (dragDot >= 0f) {
-                        // Drag force
-                        final float dragMag = dragDot * edgeLength * fluidDensity * vel * vel;
-                        Vector2 dragForce = velDir.cpy().scl(-dragMag);
-                        if (CoreGame.debugEnableWaterDrag) {
-                            immersedFixture.getBody().applyForce(dragForce, midPoint, true);
-                        }
-                        // Lift force
-                        final float liftDot = edge.dot(velDir);
-                        final float liftMag = dragMag * liftDot;
-                        final Vector2 liftDir = new Vector2(-velDir.y, velDir.x);
-                        final Vector2 liftForce = liftDir.scl(liftMag);
-                        if (CoreGame.debugEnableLiftForce) {
-                            immersedFixture.getBody().applyForce(liftForce, midPoint, true);
-                        }
-                    }
+            final float edgeLength = edge.set(x1 - x0, y1 - y0).len();
+            edge.nor();
+
+            final float dragDot = edge.y * velDir.x - edge.x * velDir.y; // normal (edge.y, -edge.x) . velDir
+
+            if (dragDot >= 0f) {
+                // Drag force
+                final float dragMag = dragDot * edgeLength * waterDensity * vel * vel;
+                force.set(velDir).scl(-dragMag);
+                if (CoreGame.debugEnableWaterDrag) {
+                    applyForce(forces, force.x, force.y, point.x, point.y);
+                }
+                // Lift force
+                final float liftDot = edge.dot(velDir);
+                final float liftMag = dragMag * liftDot;
+                force.set(-velDir.y, velDir.x).scl(liftMag);
+                if (CoreGame.debugEnableLiftForce) {
+                    applyForce(forces, force.x, force.y, point.x, point.y);
                 }
+            }
+        }
+    }
 
+    private BodyForces getBodyForces(Body body) {
+        var forces = bodyForces.get(body);
+        if (forces == null) {
+            forces = new BodyForces();
+            bodyForces.put(body, forces);
+        }
+        if (!forces.accumulating) {
+            forces.begin(body);
+            accumulatingBodyForces.add(forces);
+        }
+        return forces;
+    }
 
+    private void applyForce(BodyForces forces, float forceX, float forceY, float pointX, float pointY) {
+        if (CoreGame.debugEnableForceAggregation) {
+            forces.add(forceX, forceY, pointX, pointY);
+        } else {
+            forces.body.applyForce(forceX, forceY, pointX, pointY, true);
+            forceCallsCount++;
+        }
+    }
+
+    /**
+     * Applies the forces accumulated on each body, as a single force producing the same net force and torque about its center of mass.
+     */
+    private void applyAccumulatedForces() {
+        for (int i = 0; i < accumulatingBodyForces.size; i++) {
+            final var forces = accumulatingBodyForces.get(i);
+            forces.accumulating = false;
+            if (!CoreGame.debugEnableForceAggregation) continue;
+
+            final float forceSquared = forces.forceX * forces.forceX + forces.forceY * forces.forceY;
+            if (forceSquared > MIN_AGGREGATED_FORCE_SQUARED) {
+                // Point where the net force produces the net torque: lever perpendicular to the force, of length torque / force
+                final float leverScale = forces.torque / forceSquared;
+                forces.body.applyForce(forces.forceX, forces.forceY, forces.centerX + leverScale * forces.forceY, forces.centerY - leverScale * forces.forceX, true);
+                forceCallsCount++;
+            } else {
+                forces.body.applyForceToCenter(forces.forceX, forces.forceY, true);
+                forces.body.applyTorque(forces.torque, true);
+                forceCallsCount += 2;
             }
-        });
+        }
+        accumulatingBodyForces.clear();
     }
 
     private void updateSprings() {
-        for (var spring : this.springs) {
-            spring.update(springsStiffness, springsDampeningFactor, baseWaterLevel);
+        final boolean fixedPoint = CoreGame.debugEnableFixedPointSprings;
+        if (CoreGame.debugEnablePropagationComparison) {
+            if (!comparingPropagation) {
+                explicitSprings.copyFrom(springs);
+                explicitSprings.wakeAll();
+                comparingPropagation = true;
+            }
+            explicitSprings.update(springsStiffness, springsDampeningFactor, baseWaterLevel);
+            explicitSprings.propagate(wavesPropagationPasses, wavesPropagationSpreadFactor);
+            if (CoreGame.debugEnableAbsorbingBoundaries) {
+                explicitSprings.absorb(baseWaterLevel);
+            }
+        } else {
+            comparingPropagation = false;
         }
 
-        float[] leftDeltas = new float[springs.size()];
-        float[] rightDeltas = new float[springs.size()];
-
-        for (int j = 0; j < wavesPropagationPasses; j++) {
-            for (int i = 0; i < springs.size(); i++) {
-                final var spring = springs.get(i);
-                if (i > 0) {
-                    final var leftSpring = springs.get(i - 1);
-                    leftDeltas[i] = wavesPropagationSpreadFactor * (spring.getHeight() - leftSpring.getHeight());
-                    leftSpring.addVelocity(leftDeltas[i]);
-                }
-                if (i < springs.size() - 1) {
-                    final var rightSpring = springs.get(i + 1);
-                    rightDeltas[i] = wavesPropagationSpreadFactor * (spring.getHeight() - rightSpring.getHeight());
-                    rightSpring.addVelocity(rightDeltas[i]);
-                }
+        if (fixedPoint) {
+            fixedPointSprings.setParameters(springsStiffness, springsDampeningFactor, baseWaterLevel, wavesPropagationSpreadFactor);
+            if (!CoreGame.debugEnableParallelSprings
+                || !parallelSolver.solve(fixedPointSprings, wavesPropagationPasses, CoreGame.debugEnableAbsorbingBoundaries)) {
+                fixedPointSprings.solve(wavesPropagationPasses, CoreGame.debugEnableAbsorbingBoundaries);
             }
+        } else if (CoreGame.debugEnableImplicitWavesPropagation) {
+            springs.update(springsStiffness, springsDampeningFactor, baseWaterLevel);
+            springs.propagateImplicit(wavesPropagationPasses, wavesPropagationSpreadFactor);
+        } else {
+            springs.setKernel(CoreGame.debugEnableProvidedSpringsKernel ? springsKernel : SpringsKernel.SCALAR);
+            if (CoreGame.debugEnableSpringsKernelCheck) {
+                scalarKernelSprings.copyFrom(springs);
+                scalarKernelSprings.update(springsStiffness, springsDampeningFactor, baseWaterLevel);
+                scalarKernelSprings.propagate(wavesPropagationPasses, wavesPropagationSpreadFactor);
+            }
+            if (!CoreGame.debugEnableParallelSprings
+                || !parallelSolver.solve(springsStiffness, springsDampeningFactor, baseWaterLevel, wavesPropagationPasses, wavesPropagationSpreadFactor)) {
+                springs.update(springsStiffness, springsDampeningFactor, baseWaterLevel);
+                springs.propagate(wavesPropagationPasses, wavesPropagationSpreadFactor);
+            }
+            if (CoreGame.debugEnableSpringsKernelCheck) {
+                springsKernelMismatches = springs.countMismatches(scalarKernelSprings);
+            }
+        }
+        if (CoreGame.debugEnableAbsorbingBoundaries && !fixedPoint) {
+            springs.absorb(baseWaterLevel);
+        }
 
-            for (int i = 0; i < springs.size(); i++) {
-                if (i > 0) springs.get(i - 1).addHeight(leftDeltas[i]);
+        if (comparingPropagation) {
+            propagationMaxHeightDifference = springs.maxHeightDifference(explicitSprings);
+        }
+    }
 
-                if (i < springs.size() - 1) springs.get(i + 1).addHeight(rightDeltas[i]);
+    /**
+     * Samples the water surface at several positions, in O(1) per position, without any contact with the water fixtures. The surface is the
+     * polyline joining the springs, positions outside of the water are clamped to its ends. Any output array can be null when not needed.
+     *
+     * @param positionsX         Horizontal positions to sample
+     * @param count              Number of positions
+     * @param heights            Surface height at each position
+     * @param slopes             Surface slope (dy/dx) at each position
+     * @param verticalVelocities Vertical velocity of the waves at each position, in units per second. The base swell is not included.
+     */
+    public void querySurface(float[] positionsX, int count, float[] heights, float[] slopes, float[] verticalVelocities) {
+        springs.sampleSurface(positionsX, count, heights, slopes, verticalVelocities);
+        if (verticalVelocities != null) {
+            // The springs velocities are height increments per update
+            for (int p = 0; p < count; p++) {
+                verticalVelocities[p] /= Constants.TIME_STEP;
             }
         }
     }
 
+    /**
+     * Single position {@link #querySurface(float[], int, float[], float[], float[])}.
+     */
+    public float getSurfaceHeight(float x) {
+        queryPosition[0] = x;
+        springs.sampleSurface(queryPosition, 1, queryHeight, null, null);
+        return queryHeight[0];
+    }
+
+    /**
+     * Registers a body floating in the water, only used when the heightfield buoyancy is enabled.
+     */
+    public void addBuoyantBody(Body body) {
+        heightfieldBuoyancy.addBody(body);
+    }
+
+    /**
+     * @return the index of the first spring outside of the left absorbing boundary, where waves can be emitted without being damped
+     */
+    public int getWavesSourceIndex() {
+        return CoreGame.debugEnableAbsorbingBoundaries ? springs.getAbsorbingBoundariesWidth() : 0;
+    }
+
+    /**
+     * Scrolls the water by whole chunks to follow a position, typically the camera. The water fixtures are generated again after a scroll.
+     */
+    public void scrollTo(float centerX) {
+        final float previousX = springs.getX(0);
+        if (!pager.scrollTo(centerX, restEpsilon, baseWaterLevel)) return;
+
+        final float shift = springs.getX(0) - previousX;
+        waterRange.from += shift;
+        waterRange.to += shift;
+        waterFixtures.clear();
+        comparingPropagation = false;
+        unpublishedChangedFrom = 0;
+        unpublishedChangedTo = springs.size();
+    }
+
+    private void publishSprings() {
+        snapshots.publish(springs, unpublishedChangedFrom, unpublishedChangedTo);
+        unpublishedChangedFrom = springs.size();
+        unpublishedChangedTo = 0;
+    }
+
+    /**
+     * Can be called from any thread, while the simulation runs. The snapshot must be released with {@link #releaseSpringsSnapshot(SpringsSnapshot)}.
+     *
+     * @return the state of the springs at the end of the last update
+     */
+    public SpringsSnapshot acquireSpringsSnapshot() {
+        return snapshots.acquire();
+    }
+
+    public void releaseSpringsSnapshot(SpringsSnapshot snapshot) {
+        snapshots.release(snapshot);
+    }
+
+    /**
+     * @return the water mesh bytes uploaded by the last render
+     */
+    public int getRenderUploadedBytes() {
+        return renderer.getUploadedBytes();
+    }
+
+    /**
+     * @return the water mesh chunks in the viewport during the last render
+     */
+    public int getRenderVisibleChunksCount() {
+        return renderer.getVisibleChunksCount();
+    }
+
+    public int getRenderChunksCount() {
+        return renderer.getChunksCount();
+    }
+
+    public int getSpringsSnapshotsCount() {
+        return snapshots.getSnapshotsCount();
+    }
+
+    /**
+     * @return the Box2D force calls made by the last update
+     */
+    public int getForceCallsCount() {
+        return forceCallsCount;
+    }
+
+    public int getFrozenChunksCount() {
+        return pager.getFrozenChunksCount();
+    }
+
+    /**
+     * Sets the base swell, which moves the whole surface on top of the springs dynamics. Both amplitudes at 0 to disable it.
+     *
+     * @param swellAmplitude Root mean square height of the long swell
+     * @param chopAmplitude  Root mean square height of the short chop
+     */
+    public void setSwell(float swellAmplitude, float chopAmplitude) {
+        this.swellAmplitude = swellAmplitude;
+        this.chopAmplitude = chopAmplitude;
+    }
+
     public void disturbWater(int index, float speed) {
         if (index >= 0 && index < springs.size()) {
-            springs.get(index).addVelocity(speed);
+            springs.addVelocity(index, speed);
+            springs.wake(index);
+            if (comparingPropagation) {
+                explicitSprings.addVelocity(index, speed);
+            }
         }
     }
 
+    /**
+     * Only reads the last published springs snapshot.
+     */
     public void render(OrthographicCamera camera) {
-        renderer.render(camera, springs);
+        final var snapshot = snapshots.acquire();
+        if (renderer.isSurfaceDisplacedByShader()) {
+            // The shader interpolates the springs itself, the heightfield catches up with them once the water mesh is rendered again
+            renderer.render(camera, snapshot, renderHeightfield, 0, 0);
+        } else {
+            renderHeightfield.upsample(snapshot, snapshot.getChangedFrom(lastUpsampledStep), snapshot.getChangedTo(lastUpsampledStep));
+            renderer.render(camera, snapshot, renderHeightfield, renderHeightfield.getChangedFrom(), renderHeightfield.getChangedTo());
+            lastUpsampledStep = snapshot.getStep();
+        }
+        snapshots.release(snapshot);
     }
 
     public void handleInput(float xWorld) {
@@ -262,6 +606,13 @@ public class WaterSimulation implements Disposable, ContactHandler {
         return this.baseWaterLevel;
     }
 
+    /**
+     * @return the static body holding the water fixtures
+     */
+    public Body getBody() {
+        return waterBody;
+    }
+
     public void setSpringsDampeningFactor(float springsDampeningFactor) {
         this.springsDampeningFactor = springsDampeningFactor;
     }
@@ -305,9 +656,130 @@ public class WaterSimulation implements Disposable, ContactHandler {
 
     public void setDensity(float density) {
         this.waterDensity = density;
-        this.waterBody.getFixtureList().forEach(fixture -> {
-            fixture.setDensity(density);
-        });
+        this.waterFixtures.setDensity(density);
+    }
+
+    public int getFixturesLodMaxSprings() {
+        return waterFixtures.getMaxSpringsPerFixture();
+    }
+
+    public void setFixturesLodMaxSprings(int maxSprings) {
+        waterFixtures.setMaxSpringsPerFixture(maxSprings);
+    }
+
+    private void updateAbsorbingBoundaries() {
+        springs.setAbsorbingBoundaries(absorbingBoundarySprings, absorbingBoundaryStrength);
+        explicitSprings.setAbsorbingBoundaries(absorbingBoundarySprings, absorbingBoundaryStrength);
+    }
+
+    public int getAbsorbingBoundarySprings() {
+        return absorbingBoundarySprings;
+    }
+
+    public void setAbsorbingBoundarySprings(int springsCount) {
+        this.absorbingBoundarySprings = springsCount;
+        updateAbsorbingBoundaries();
+    }
+
+    public float getAbsorbingBoundaryStrength() {
+        return absorbingBoundaryStrength;
+    }
+
+    public void setAbsorbingBoundaryStrength(float strength) {
+        this.absorbingBoundaryStrength = strength;
+        updateAbsorbingBoundaries();
+    }
+
+    public float getSubmergedPositionTolerance() {
+        return submergedPolygons.getPositionTolerance();
+    }
+
+    public void setSubmergedPositionTolerance(float tolerance) {
+        submergedPolygons.setPositionTolerance(tolerance);
+    }
+
+    public float getSubmergedAngleTolerance() {
+        return submergedPolygons.getAngleTolerance();
+    }
+
+    public void setSubmergedAngleTolerance(float tolerance) {
+        submergedPolygons.setAngleTolerance(tolerance);
+    }
+
+    public float getSubmergedHeightTolerance() {
+        return submergedPolygons.getHeightTolerance();
+    }
+
+    public void setSubmergedHeightTolerance(float tolerance) {
+        submergedPolygons.setHeightTolerance(tolerance);
+    }
+
+    /**
+     * @return the submerged polygons reused during the last update
+     */
+    public int getSubmergedPolygonCacheHits() {
+        return submergedPolygons.getHits();
+    }
+
+    /**
+     * @return the submerged polygons clipped during the last update
+     */
+    public int getSubmergedPolygonCacheMisses() {
+        return submergedPolygons.getMisses();
+    }
+
+    public float getFixturesLodDistanceStep() {
+        return waterFixtures.getLodDistanceStep();
+    }
+
+    public void setFixturesLodDistanceStep(float distanceStep) {
+        waterFixtures.setLodDistanceStep(distanceStep);
+    }
+
+    public int getFixtureCount() {
+        return waterFixtures.getFixtureCount();
+    }
+
+    /**
+     * @return the bodies touching the water fixtures
+     */
+    public int getImmersedBodiesCount() {
+        return occupancy.getBodiesCount();
+    }
+
+    /**
+     * @return the largest height difference between the current propagation and the explicit passes, at the last update
+     */
+    public float getPropagationMaxHeightDifference() {
+        return propagationMaxHeightDifference;
+    }
+
+    /**
+     * @return the heights and velocities that differ, bit for bit, between the provided and the scalar springs kernels at the last update
+     */
+    public int getSpringsKernelMismatches() {
+        return springsKernelMismatches;
+    }
+
+    /**
+     * @return the number of springs currently simulated, the others are at rest
+     */
+    public int getActiveSpringsCount() {
+        return springs.getActiveTo() - springs.getActiveFrom();
+    }
+
+    /**
+     * @return the waves amplitude with the current propagation
+     */
+    public float getWavesDeviation() {
+        return springs.heightsDeviation(baseWaterLevel);
+    }
+
+    /**
+     * @return the waves amplitude with the explicit passes, while the comparison is enabled
+     */
+    public float getExplicitWavesDeviation() {
+        return explicitSprings.heightsDeviation(baseWaterLevel);
     }
 
     public float getFakeWaterVelocityX() {
@@ -325,4 +797,48 @@ public class WaterSimulation implements Disposable, ContactHandler {
     public void setFakeWaterVelocityY(float value) {
         this.fakeWaterVelocityY = value;
     }
+
+    /**
+     * Forces applied on a body during an update, accumulated Java side. Also holds the body state read once per update.
+     */
+    private static class BodyForces {
+        private Body body;
+        private boolean accumulating;
+        private float centerX;
+        private float centerY;
+        private float velocityX;
+        private float velocityY;
+        private float angularVelocity;
+        private float forceX;
+        private float forceY;
+        private float torque;
+
+        private void begin(Body body) {
+            this.body = body;
+            this.accumulating = true;
+            final var center = body.getWorldCenter();
+            centerX = center.x;
+            centerY = center.y;
+            final var velocity = body.getLinearVelocity();
+            velocityX = velocity.x;
+            velocityY = velocity.y;
+            angularVelocity = body.getAngularVelocity();
+            forceX = 0f;
+            forceY = 0f;
+            torque = 0f;
+        }
+
+        private void add(float forceX, float forceY, float pointX, float pointY) {
+            this.forceX += forceX;
+            this.forceY += forceY;
+            this.torque += (pointX - centerX) * forceY - (pointY - centerY) * forceX;
+        }
+
+        /**
+         * Same as Body.getLinearVelocityFromWorldPoint, from the state read at the start of the update.
+         */
+        private Vector2 getVelocityAt(Vector2 point, Vector2 out) {
+            return out.set(velocityX - angularVelocity * (point.y - centerY), velocityY + angularVelocity * (point.x - centerX));
+        }
+    }
 }
@@ -9,31 +9,61 @@ public class WaveEmitter {
     private WaterSimulation water;
     private Range wavePeriodRange;
     private Range waveAmplitudeRange;
+    private float swellAmplitude;
+    private float chopAmplitude;
     private float emitTimer;
     private float nextWaveWaitTime;
 
-    public WaveEmitter(WaterSimulation water, Range periodRange, Range amplitudeRange) {
+    public WaveEmitter(WaterSimulation water, Range periodRange, Range amplitudeRange, float swellAmplitude, float chopAmplitude) {
         this.water = water;
         this.wavePeriodRange = periodRange;
         this.waveAmplitudeRange = amplitudeRange;
+        this.swellAmplitude = swellAmplitude;
+        this.chopAmplitude = chopAmplitude;
 
         emitTimer = 0f;
         this.nextWaveWaitTime = wavePeriodRange.getRandom();
     }
 
     public void update() {
+        if (!CoreGame.debugEnableWaveGeneration || !CoreGame.debugEnableSpectralSwell) {
+            water.setSwell(0f, 0f);
+        }
         if (!CoreGame.debugEnableWaveGeneration) return;
 
+        if (CoreGame.debugEnableSpectralSwell) {
+            water.setSwell(swellAmplitude, chopAmplitude);
+            return;
+        }
+
         emitTimer += Constants.TIME_STEP;
         if (emitTimer >= nextWaveWaitTime) {
             emitTimer = 0f;
 
-            //TODO Index
-            water.disturbWater(0, waveAmplitudeRange.getRandom());
+            water.disturbWater(water.getWavesSourceIndex(), waveAmplitudeRange.getRandom());
             this.nextWaveWaitTime = wavePeriodRange.getRandom();
         }
     }
 
+    /**
+     * Spectrum of the swell, used instead of the random disturbances when the spectral swell is enabled.
+     *
+     * @param swellAmplitude Root mean square height of the long swell
+     * @param chopAmplitude  Root mean square height of the short chop
+     */
+    public void setSpectrum(float swellAmplitude, float chopAmplitude) {
+        this.swellAmplitude = swellAmplitude;
+        this.chopAmplitude = chopAmplitude;
+    }
+
+    public float getSwellAmplitude() {
+        return swellAmplitude;
+    }
+
+    public float getChopAmplitude() {
+        return chopAmplitude;
+    }
+
     public void setAmplitudeRange(Range amplitudeRange) {
         this.waveAmplitudeRange = amplitudeRange;
     }
@@ -0,0 +1,186 @@
+package fr.baldurcrew.gdx25.water;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Springs window scrolled forward and back by several chunks: frozen chunks come back within their quantization step, chunks at rest are
+ * dropped, and the frozen chunks never exceed the capacity.
+ */
+class OceanPagerTest {
+
+    private static final float FROM_X = -3f;
+    private static final float SPACING = 0.25f;
+    private static final int CHUNK_SPRINGS = 16;
+    private static final int WINDOW_CHUNKS = 4;
+    private static final int SPRINGS_COUNT = CHUNK_SPRINGS * WINDOW_CHUNKS;
+    private static final float BASE_LEVEL = 5f;
+    private static final float REST_EPSILON = 0.0005f;
+    /**
+     * Same as the pager, springs of a thawed chunk blended towards the neighbour it was not frozen with.
+     */
+    private static final int SEAM_SPRINGS = 4;
+
+    @Test
+    void fullWindowScrollThawsWithinQuantizationStep() {
+        final var springs = new SpringStore(FROM_X, SPACING, SPRINGS_COUNT, BASE_LEVEL);
+        final var pager = new OceanPager(springs, CHUNK_SPRINGS, 8);
+        final var random = new Random(25);
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            springs.setState(i, BASE_LEVEL + (random.nextFloat() - 0.5f), (random.nextFloat() - 0.5f) * 0.1f);
+        }
+        final var heights = copyHeights(springs);
+        final var velocities = copyVelocities(springs);
+
+        assertTrue(scrollByChunks(pager, springs, WINDOW_CHUNKS), "Scrolled forward");
+        assertWindow(springs, WINDOW_CHUNKS * CHUNK_SPRINGS);
+        assertEquals(WINDOW_CHUNKS, pager.getFrozenChunksCount(), "Frozen chunks");
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            assertEquals(BASE_LEVEL, springs.getHeight(i), 0f, "Height of spring " + i + " entering without frozen state");
+            assertEquals(0f, springs.getVelocity(i), 0f, "Velocity of spring " + i + " entering without frozen state");
+        }
+
+        assertTrue(scrollByChunks(pager, springs, -WINDOW_CHUNKS), "Scrolled back");
+        assertWindow(springs, 0);
+        assertEquals(0, pager.getFrozenChunksCount(), "Frozen chunks");
+        assertThawed(springs, heights, velocities, 0, SPRINGS_COUNT);
+    }
+
+    @Test
+    void partialScrollThawsWithinQuantizationStepOutsideOfTheSeam() {
+        final var springs = new SpringStore(FROM_X, SPACING, SPRINGS_COUNT, BASE_LEVEL);
+        final var pager = new OceanPager(springs, CHUNK_SPRINGS, 8);
+        final var random = new Random(25);
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            springs.setState(i, BASE_LEVEL + (random.nextFloat() - 0.5f) * 0.2f, (random.nextFloat() - 0.5f) * 0.01f);
+        }
+        final var heights = copyHeights(springs);
+        final var velocities = copyVelocities(springs);
+
+        for (int step = 0; step < 3; step++) {
+            assertTrue(scrollByChunks(pager, springs, 1), "Scrolled forward");
+            assertWindow(springs, (step + 1) * CHUNK_SPRINGS);
+            assertEquals(step + 1, pager.getFrozenChunksCount(), "Frozen chunks");
+        }
+        for (int step = 0; step < 3; step++) {
+            assertTrue(scrollByChunks(pager, springs, -1), "Scrolled back");
+            assertWindow(springs, (2 - step) * CHUNK_SPRINGS);
+        }
+
+        // Each thawed chunk is blended towards its right neighbour: only its springs at the seam moved
+        for (int chunk = 0; chunk < WINDOW_CHUNKS - 1; chunk++) {
+            assertThawed(springs, heights, velocities, chunk * CHUNK_SPRINGS, (chunk + 1) * CHUNK_SPRINGS - SEAM_SPRINGS);
+        }
+        assertThawed(springs, heights, velocities, (WINDOW_CHUNKS - 1) * CHUNK_SPRINGS, SPRINGS_COUNT);
+    }
+
+    @Test
+    void chunksAtRestAreDropped() {
+        final var springs = new SpringStore(FROM_X, SPACING, SPRINGS_COUNT, BASE_LEVEL);
+        final var pager = new OceanPager(springs, CHUNK_SPRINGS, 8);
+        // Only the second chunk moves, the others are at rest
+        springs.setState(CHUNK_SPRINGS + 3, BASE_LEVEL + 0.3f, 0.02f);
+
+        assertTrue(scrollByChunks(pager, springs, WINDOW_CHUNKS), "Scrolled forward");
+        assertEquals(1, pager.getFrozenChunksCount(), "Frozen chunks");
+
+        assertTrue(scrollByChunks(pager, springs, -WINDOW_CHUNKS), "Scrolled back");
+        assertEquals(0, pager.getFrozenChunksCount(), "Frozen chunks");
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            final float expectedHeight = i == CHUNK_SPRINGS + 3 ? BASE_LEVEL + 0.3f : BASE_LEVEL;
+            assertEquals(expectedHeight, springs.getHeight(i), 0.3f / Short.MAX_VALUE, "Height of spring " + i);
+        }
+    }
+
+    @Test
+    void frozenChunksStayWithinCapacity() {
+        final int frozenCapacity = 3;
+        final var springs = new SpringStore(FROM_X, SPACING, SPRINGS_COUNT, BASE_LEVEL);
+        final var pager = new OceanPager(springs, CHUNK_SPRINGS, frozenCapacity);
+        final var random = new Random(25);
+
+        int maxFrozen = 0;
+        for (int step = 0; step < 20; step++) {
+            // Every chunk of the window moves when it leaves it
+            for (int i = 0; i < SPRINGS_COUNT; i++) {
+                springs.setState(i, BASE_LEVEL + (random.nextFloat() - 0.5f), 0.01f);
+            }
+            final int chunksDelta = step < 10 ? 2 : -3;
+            final int previousOrigin = springs.getOrigin();
+            assertTrue(scrollByChunks(pager, springs, chunksDelta), "Scrolled at step " + step);
+            assertWindow(springs, previousOrigin + chunksDelta * CHUNK_SPRINGS);
+            assertTrue(pager.getFrozenChunksCount() <= frozenCapacity, "Frozen chunks " + pager.getFrozenChunksCount() + " at step " + step);
+            maxFrozen = Math.max(maxFrozen, pager.getFrozenChunksCount());
+        }
+        assertEquals(frozenCapacity, maxFrozen, "Frozen chunks at capacity");
+    }
+
+    @Test
+    void scrollsOnlyByWholeChunks() {
+        final var springs = new SpringStore(FROM_X, SPACING, SPRINGS_COUNT, BASE_LEVEL);
+        final var pager = new OceanPager(springs, CHUNK_SPRINGS, 8);
+        final float windowCenterX = (springs.getX(0) + springs.getX(SPRINGS_COUNT - 1)) / 2f;
+
+        assertFalse(pager.scrollTo(windowCenterX + CHUNK_SPRINGS * SPACING * 0.9f, REST_EPSILON, BASE_LEVEL), "Scrolled by less than a chunk");
+        assertFalse(pager.scrollTo(windowCenterX - CHUNK_SPRINGS * SPACING * 0.9f, REST_EPSILON, BASE_LEVEL), "Scrolled by less than a chunk");
+        assertWindow(springs, 0);
+    }
+
+    /**
+     * Moves the center of the window by whole chunks, plus half a chunk so that rounding never falls short.
+     */
+    private static boolean scrollByChunks(OceanPager pager, SpringStore springs, int chunksDelta) {
+        final float windowCenterX = (springs.getX(0) + springs.getX(SPRINGS_COUNT - 1)) / 2f;
+        final float chunkWidth = CHUNK_SPRINGS * SPACING;
+        return pager.scrollTo(windowCenterX + (chunksDelta + Math.signum(chunksDelta) * 0.5f) * chunkWidth, REST_EPSILON, BASE_LEVEL);
+    }
+
+    private static void assertWindow(SpringStore springs, int expectedOrigin) {
+        assertEquals(expectedOrigin, springs.getOrigin(), "Origin");
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            assertEquals(FROM_X + (expectedOrigin + i) * SPACING, springs.getX(i), 1e-4f, "X of spring " + i);
+            assertEquals(i, springs.indexAt(springs.getX(i) + SPACING * 0.5f), "Index at spring " + i);
+        }
+        assertEquals(0, springs.getActiveFrom(), "Active range start");
+        assertEquals(SPRINGS_COUNT, springs.getActiveTo(), "Active range end");
+    }
+
+    /**
+     * Each chunk is quantized on its own scale, its largest value over the short range, to the nearest step. The float rounding of the
+     * base level is allowed on top.
+     */
+    private static void assertThawed(SpringStore springs, float[] heights, float[] velocities, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final int chunkFrom = i / CHUNK_SPRINGS * CHUNK_SPRINGS;
+            float maxHeight = 0f;
+            float maxVelocity = 0f;
+            for (int j = chunkFrom; j < chunkFrom + CHUNK_SPRINGS; j++) {
+                maxHeight = Math.max(maxHeight, Math.abs(heights[j] - BASE_LEVEL));
+                maxVelocity = Math.max(maxVelocity, Math.abs(velocities[j]));
+            }
+            assertEquals(heights[i], springs.getHeight(i), maxHeight / Short.MAX_VALUE / 2f + Math.ulp(BASE_LEVEL), "Height of spring " + i);
+            assertEquals(velocities[i], springs.getVelocity(i), maxVelocity / Short.MAX_VALUE / 2f + Math.ulp(maxVelocity), "Velocity of spring " + i);
+        }
+    }
+
+    private static float[] copyHeights(SpringStore springs) {
+        final var heights = new float[springs.size()];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = springs.getHeight(i);
+        }
+        return heights;
+    }
+
+    private static float[] copyVelocities(SpringStore springs) {
+        final var velocities = new float[springs.size()];
+        for (int i = 0; i < velocities.length; i++) {
+            velocities[i] = springs.getVelocity(i);
+        }
+        return velocities;
+    }
+}
@@ -0,0 +1,166 @@
+package fr.baldurcrew.gdx25.water;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Long runs of the parallel springs solver, compared bit for bit with the single-threaded solve of the same springs.
+ */
+class ParallelSpringsSolverTest {
+
+    private static final int SPRINGS_COUNT = 1000;
+    private static final int CHUNK_SIZE = 64;
+    private static final int STEPS = 5000;
+    private static final float STIFFNESS = 0.005f;
+    private static final float DAMPENING = 0.025f;
+    private static final float BASE_LEVEL = 5f;
+    private static final int PASSES = 4;
+    private static final float SPREAD_FACTOR = 0.1f;
+    private static final float REST_EPSILON = 0.0005f;
+    private static final int ABSORBING_BOUNDARY_SPRINGS = 6;
+    private static final float ABSORBING_BOUNDARY_STRENGTH = 0.1f;
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * Runs the chunks on the pool threads, in no particular order.
+     */
+    private static void runOnPool(int count, IntConsumer chunk) {
+        pool.submit(() -> IntStream.range(0, count).parallel().forEach(chunk)).join();
+    }
+
+    /**
+     * Runs the chunks on the calling thread, last chunk first.
+     */
+    private static void runReversed(int count, IntConsumer chunk) {
+        for (int i = count - 1; i >= 0; i--) {
+            chunk.accept(i);
+        }
+    }
+
+    @Test
+    void floatSpringsMatchSequentialOnPool() {
+        assertFloatSpringsMatchSequential(ParallelSpringsSolverTest::runOnPool);
+    }
+
+    @Test
+    void floatSpringsMatchSequentialInReverseOrder() {
+        assertFloatSpringsMatchSequential(ParallelSpringsSolverTest::runReversed);
+    }
+
+    @Test
+    void fixedPointSpringsMatchSequentialOnPool() {
+        assertFixedPointSpringsMatchSequential(ParallelSpringsSolverTest::runOnPool);
+    }
+
+    @Test
+    void fixedPointSpringsMatchSequentialInReverseOrder() {
+        assertFixedPointSpringsMatchSequential(ParallelSpringsSolverTest::runReversed);
+    }
+
+    private static void assertFloatSpringsMatchSequential(ChunkRunner runner) {
+        final var sequential = new SpringStore(0f, 0.25f, SPRINGS_COUNT, BASE_LEVEL);
+        final var parallel = new SpringStore(0f, 0.25f, SPRINGS_COUNT, BASE_LEVEL);
+        sequential.setAbsorbingBoundaries(ABSORBING_BOUNDARY_SPRINGS, ABSORBING_BOUNDARY_STRENGTH);
+        parallel.setAbsorbingBoundaries(ABSORBING_BOUNDARY_SPRINGS, ABSORBING_BOUNDARY_STRENGTH);
+        final var solver = new ParallelSpringsSolver(runner, parallel, CHUNK_SIZE, 0);
+        final var sequentialSplashes = new Random(25);
+        final var parallelSplashes = new Random(25);
+
+        int parallelSteps = 0;
+        for (int step = 0; step < STEPS; step++) {
+            splash(sequential, sequentialSplashes, step);
+            sequential.update(STIFFNESS, DAMPENING, BASE_LEVEL);
+            sequential.propagate(PASSES, SPREAD_FACTOR);
+            sequential.absorb(BASE_LEVEL);
+            sequential.updateActiveRange(REST_EPSILON, BASE_LEVEL);
+
+            splash(parallel, parallelSplashes, step);
+            if (solver.solve(STIFFNESS, DAMPENING, BASE_LEVEL, PASSES, SPREAD_FACTOR)) {
+                parallelSteps++;
+            } else {
+                parallel.update(STIFFNESS, DAMPENING, BASE_LEVEL);
+                parallel.propagate(PASSES, SPREAD_FACTOR);
+            }
+            parallel.absorb(BASE_LEVEL);
+            parallel.updateActiveRange(REST_EPSILON, BASE_LEVEL);
+
+            assertSameSprings(sequential, parallel, step);
+        }
+        assertTrue(parallelSteps > STEPS / 2, "Parallel solver used on " + parallelSteps + " steps only");
+    }
+
+    private static void assertFixedPointSpringsMatchSequential(ChunkRunner runner) {
+        final var sequential = new SpringStore(0f, 0.25f, SPRINGS_COUNT, BASE_LEVEL);
+        final var parallel = new SpringStore(0f, 0.25f, SPRINGS_COUNT, BASE_LEVEL);
+        sequential.setAbsorbingBoundaries(ABSORBING_BOUNDARY_SPRINGS, ABSORBING_BOUNDARY_STRENGTH);
+        parallel.setAbsorbingBoundaries(ABSORBING_BOUNDARY_SPRINGS, ABSORBING_BOUNDARY_STRENGTH);
+        final var sequentialFixedPoint = new FixedPointSprings(sequential);
+        final var parallelFixedPoint = new FixedPointSprings(parallel);
+        sequentialFixedPoint.setParameters(STIFFNESS, DAMPENING, BASE_LEVEL, SPREAD_FACTOR);
+        parallelFixedPoint.setParameters(STIFFNESS, DAMPENING, BASE_LEVEL, SPREAD_FACTOR);
+        final var solver = new ParallelSpringsSolver(runner, parallel, CHUNK_SIZE, 0);
+        final var sequentialSplashes = new Random(25);
+        final var parallelSplashes = new Random(25);
+
+        int parallelSteps = 0;
+        for (int step = 0; step < STEPS; step++) {
+            splash(sequential, sequentialSplashes, step);
+            sequentialFixedPoint.solve(PASSES, true);
+            sequential.updateActiveRange(REST_EPSILON, BASE_LEVEL);
+
+            splash(parallel, parallelSplashes, step);
+            if (solver.solve(parallelFixedPoint, PASSES, true)) {
+                parallelSteps++;
+            } else {
+                parallelFixedPoint.solve(PASSES, true);
+            }
+            parallel.updateActiveRange(REST_EPSILON, BASE_LEVEL);
+
+            assertSameSprings(sequential, parallel, step);
+        }
+        assertTrue(parallelSteps > STEPS / 2, "Parallel solver used on " + parallelSteps + " steps only");
+    }
+
+    /**
+     * Hits a random spring every few steps, like the bodies falling in the water, so that the active range keeps growing and shrinking.
+     */
+    private static void splash(SpringStore springs, Random random, int step) {
+        if (step % 40 != 0) return;
+
+        final int index = random.nextInt(springs.size());
+        springs.addVelocity(index, (random.nextFloat() - 0.5f) * 0.4f);
+        springs.wake(index);
+    }
+
+    private static void assertSameSprings(SpringStore expected, SpringStore actual, int step) {
+        assertEquals(expected.getActiveFrom(), actual.getActiveFrom(), "Active range start at step " + step);
+        assertEquals(expected.getActiveTo(), actual.getActiveTo(), "Active range end at step " + step);
+        for (int i = 0; i < expected.size(); i++) {
+            final int index = i;
+            assertEquals(Float.floatToRawIntBits(expected.getHeight(i)), Float.floatToRawIntBits(actual.getHeight(i)),
+                () -> "Height of spring " + index + " at step " + step);
+            assertEquals(Float.floatToRawIntBits(expected.getVelocity(i)), Float.floatToRawIntBits(actual.getVelocity(i)),
+                () -> "Velocity of spring " + index + " at step " + step);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package fr.baldurcrew.gdx25.water;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The base swell, evaluated where the surface is read instead of being stored in the springs.
+ */
+class SpectralSwellTest {
+
+    private static final int SPRINGS_COUNT = 64;
+    private static final float BASE_LEVEL = 5f;
+
+    @Test
+    void bandsHaveTheRequestedRootMeanSquare() {
+        final var swell = new SpectralSwell(25L);
+        swell.advance(0.6f, 0f);
+
+        // Over many times the longest wavelength, the cross terms of the components average out
+        double sum = 0.0;
+        final int samples = 100000;
+        for (int s = 0; s < samples; s++) {
+            final float height = swell.heightAt(s * 0.1f);
+            sum += height * height;
+        }
+        assertEquals(0.6, Math.sqrt(sum / samples), 0.03, "Swell root mean square");
+    }
+
+    @Test
+    void surfaceSamplesIncludeTheSwellButNotTheSprings() {
+        final var springs = new SpringStore(0f, 0.25f, SPRINGS_COUNT, BASE_LEVEL);
+        final var swell = new SpectralSwell(25L);
+        springs.setSwell(swell);
+
+        final float[] positions = {0.3f, 4.1f, 9.9f};
+        final float[] heights = new float[positions.length];
+        final float[] slopes = new float[positions.length];
+        for (int step = 0; step < 100; step++) {
+            swell.advance(0.4f, 0.1f);
+            springs.sampleSurface(positions, positions.length, heights, slopes, null);
+            for (int p = 0; p < positions.length; p++) {
+                assertEquals(BASE_LEVEL + swell.heightAt(positions[p]), heights[p], 1e-5f, "Surface height at " + positions[p]);
+                final float dx = 1e-2f;
+                final float slope = (swell.heightAt(positions[p] + dx) - swell.heightAt(positions[p] - dx)) / (2f * dx);
+                assertEquals(slope, slopes[p], 1e-2f, "Surface slope at " + positions[p]);
+            }
+        }
+        assertTrue(swell.getMaxHeight() > 0f, "Swell enabled");
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            assertEquals(BASE_LEVEL, springs.getHeight(i), 0f, "Height of spring " + i);
+            assertEquals(BASE_LEVEL + swell.heightAt(springs.getX(i)), springs.getSurfaceHeight(i), 1e-6f, "Surface height at spring " + i);
+        }
+    }
+
+    @Test
+    void disabledSwellIsFlat() {
+        final var swell = new SpectralSwell(25L);
+        swell.advance(0f, 0f);
+        assertEquals(0f, swell.getMaxHeight(), 0f, "Max height");
+        for (int s = 0; s < 100; s++) {
+            assertEquals(0f, swell.heightAt(s * 0.37f), 0f, "Height");
+            assertEquals(0f, swell.slopeAt(s * 0.37f), 0f, "Slope");
+        }
+    }
+}
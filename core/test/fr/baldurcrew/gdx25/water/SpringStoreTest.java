@@ -0,0 +1,98 @@
+package fr.baldurcrew.gdx25.water;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Implicit waves propagation, compared with the explicit passes it replaces.
+ */
+class SpringStoreTest {
+
+    private static final int SPRINGS_COUNT = 200;
+    private static final float STIFFNESS = 0.005f;
+    private static final float DAMPENING = 0.025f;
+    private static final float BASE_LEVEL = 5f;
+    private static final int PASSES = 4;
+    private static final float SPREAD_FACTOR = 0.1f;
+
+    @Test
+    void implicitPropagationMatchesExplicitPasses() {
+        final var explicit = createBump(8f);
+        final var implicit = createBump(8f);
+        final var initial = createBump(8f);
+
+        explicit.propagate(PASSES, SPREAD_FACTOR);
+        implicit.propagateImplicit(PASSES, SPREAD_FACTOR);
+
+        final float explicitChange = explicit.maxHeightDifference(initial);
+        assertTrue(explicitChange > 0.01f, "Explicit passes barely changed the heights: " + explicitChange);
+        assertTrue(implicit.maxHeightDifference(explicit) < 0.05f * explicitChange,
+            "Implicit heights differ by " + implicit.maxHeightDifference(explicit) + " for a change of " + explicitChange);
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            final int index = i;
+            assertEquals(explicit.getVelocity(i), implicit.getVelocity(i), 0.05f * explicitChange, () -> "Velocity of spring " + index);
+        }
+    }
+
+    @Test
+    void implicitPropagationAddsTheHeightChangesToTheVelocities() {
+        final var implicit = createBump(4f);
+        final var initial = createBump(4f);
+
+        implicit.propagateImplicit(PASSES, SPREAD_FACTOR);
+
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            final int index = i;
+            assertEquals(implicit.getHeight(i) - initial.getHeight(i), implicit.getVelocity(i), 1e-6f, () -> "Velocity of spring " + index);
+        }
+    }
+
+    @Test
+    void implicitPropagationConservesTheTotalHeight() {
+        final var implicit = createBump(4f);
+        final var initial = createBump(4f);
+
+        implicit.propagateImplicit(PASSES, 2f);
+
+        assertEquals(totalHeight(initial), totalHeight(implicit), 1e-3f, "Total height");
+    }
+
+    @Test
+    void implicitRunStaysCloseToExplicitRun() {
+        final var explicit = createBump(8f);
+        final var implicit = createBump(8f);
+
+        for (int step = 0; step < 2000; step++) {
+            explicit.update(STIFFNESS, DAMPENING, BASE_LEVEL);
+            explicit.propagate(PASSES, SPREAD_FACTOR);
+            implicit.update(STIFFNESS, DAMPENING, BASE_LEVEL);
+            implicit.propagateImplicit(PASSES, SPREAD_FACTOR);
+
+            final float difference = implicit.maxHeightDifference(explicit);
+            assertTrue(difference < 0.01f, "Implicit heights differ by " + difference + " at step " + step);
+        }
+        assertTrue(implicit.heightsDeviation(BASE_LEVEL) < 1e-3f, "Implicit waves not damped: " + implicit.heightsDeviation(BASE_LEVEL));
+    }
+
+    /**
+     * @return springs at rest with a gaussian bump of height 1 in their middle
+     */
+    private static SpringStore createBump(float width) {
+        final var springs = new SpringStore(0f, 0.25f, SPRINGS_COUNT, BASE_LEVEL);
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            final float distance = (i - SPRINGS_COUNT / 2f) / width;
+            springs.setState(i, BASE_LEVEL + (float) Math.exp(-distance * distance), 0f);
+        }
+        return springs;
+    }
+
+    private static double totalHeight(SpringStore springs) {
+        double total = 0;
+        for (int i = 0; i < springs.size(); i++) {
+            total += springs.getHeight(i);
+        }
+        return total;
+    }
+}
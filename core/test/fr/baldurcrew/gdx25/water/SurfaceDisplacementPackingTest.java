@@ -0,0 +1,54 @@
+package fr.baldurcrew.gdx25.water;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The shader displaced surface must match the water mesh upsampled by {@link RenderHeightfield}.
+ */
+class SurfaceDisplacementPackingTest {
+
+    private static final int SPRINGS_COUNT = 64;
+    private static final float SPRINGS_SPACING = 0.25f;
+
+    @Test
+    void interpolationMatchesRenderHeightfield() {
+        for (int subdivisions = 1; subdivisions <= 5; subdivisions++) {
+            assertInterpolationMatchesRenderHeightfield(subdivisions);
+        }
+    }
+
+    private static void assertInterpolationMatchesRenderHeightfield(int subdivisions) {
+        final var snapshot = createSnapshot(new Random(23L + subdivisions));
+        final var heightfield = new RenderHeightfield(SPRINGS_COUNT, SPRINGS_SPACING, subdivisions);
+        heightfield.upsample(snapshot, 0, SPRINGS_COUNT);
+
+        final var packed = new float[SPRINGS_COUNT];
+        SurfaceDisplacementPacking.packHeights(snapshot, packed);
+        final var vertices = SurfaceDisplacementPacking.buildGridVertices(SPRINGS_COUNT, subdivisions);
+        assertEquals(heightfield.size() * 2 * SurfaceDisplacementPacking.VALUES_PER_VERTEX, vertices.length, "Grid vertices");
+
+        for (int i = 0; i < heightfield.size(); i++) {
+            final int sample = i;
+            final int top = (i * 2 + 1) * SurfaceDisplacementPacking.VALUES_PER_VERTEX;
+            final float springCoordinate = vertices[top];
+            assertEquals(1f, vertices[top + 1], 0f, () -> "Role of the top vertex of sample " + sample);
+            assertEquals(heightfield.getX(i), snapshot.getX(0) + springCoordinate * SPRINGS_SPACING, 1e-4f, () -> "X of sample " + sample);
+            assertEquals(heightfield.getHeight(i), SurfaceDisplacementPacking.interpolate(packed, SPRINGS_COUNT, springCoordinate), 1e-5f,
+                () -> "Height of sample " + sample + " with " + subdivisions + " subdivisions");
+        }
+    }
+
+    private static SpringsSnapshot createSnapshot(Random random) {
+        final var snapshot = new SpringsSnapshot(SPRINGS_COUNT);
+        for (int i = 0; i < SPRINGS_COUNT; i++) {
+            snapshot.x[i] = 3f + i * SPRINGS_SPACING;
+            snapshot.heights[i] = 5f + random.nextFloat() - 0.5f;
+        }
+        snapshot.step = 1;
+        return snapshot;
+    }
+}
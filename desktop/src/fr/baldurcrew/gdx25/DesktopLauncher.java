@@ -2,6 +2,9 @@ package fr.baldurcrew.gdx25;
 
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import fr.baldurcrew.gdx25.water.SpringsKernel;
+
+import java.util.concurrent.ForkJoinPool;
 
 // Please note that on macOS your application needs to be started with the -XstartOnFirstThread JVM argument
 public class DesktopLauncher {
@@ -10,6 +13,17 @@ public class DesktopLauncher {
         config.setForegroundFPS(60);
         config.setTitle("gdx-jam-25");
         config.setWindowedMode(1600, 900);
-        new Lwjgl3Application(new CoreGame(), config);
+        new Lwjgl3Application(new CoreGame(new ForkJoinChunkRunner(ForkJoinPool.commonPool()), createSpringsKernel()), config);
+    }
+
+    /**
+     * The Vector API kernel when the JVM was started with --add-modules jdk.incubator.vector (the gradle run tasks are), the scalar one
+     * otherwise.
+     */
+    private static SpringsKernel createSpringsKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SpringsKernel.SCALAR;
+        }
+        return new VectorSpringsKernel();
     }
 }
@@ -0,0 +1,59 @@
+package fr.baldurcrew.gdx25;
+
+import fr.baldurcrew.gdx25.water.ChunkRunner;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the chunks on a {@link ForkJoinPool}. Desktop only, the html target has no threads.
+ */
+public class ForkJoinChunkRunner implements ChunkRunner {
+
+    private final ForkJoinPool pool;
+    private final ArrayList<ChunkTask> tasks = new ArrayList<>();
+    private final RunTask runTask = new RunTask();
+    private IntConsumer chunk;
+    private int count;
+
+    public ForkJoinChunkRunner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void run(int count, IntConsumer chunk) {
+        this.chunk = chunk;
+        this.count = count;
+        while (tasks.size() < count) {
+            tasks.add(new ChunkTask(tasks.size()));
+        }
+
+        runTask.reinitialize();
+        pool.invoke(runTask);
+    }
+
+    private class RunTask extends RecursiveAction {
+        @Override
+        protected void compute() {
+            for (int i = 0; i < count; i++) {
+                tasks.get(i).reinitialize();
+            }
+            invokeAll(tasks.subList(0, count));
+        }
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private final int index;
+
+        private ChunkTask(int index) {
+            this.index = index;
+        }
+
+        @Override
+        protected void compute() {
+            chunk.accept(index);
+        }
+    }
+}
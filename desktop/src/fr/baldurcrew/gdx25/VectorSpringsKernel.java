@@ -0,0 +1,55 @@
+package fr.baldurcrew.gdx25;
+
+import fr.baldurcrew.gdx25.water.SpringsKernel;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Springs kernel on the Vector API, as many springs per instruction as the preferred species holds. Desktop only, the Vector API is an
+ * incubator module: compiled and run with --add-modules jdk.incubator.vector.
+ * <p>
+ * Same operations in the same order as the scalar loops, so the result is the same bit for bit. The springs left after the last full vector
+ * go through the scalar loops.
+ */
+public class VectorSpringsKernel implements SpringsKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void update(float[] heights, float[] velocities, int from, int to, float stiffness, float dampening, float baseLevel) {
+        final int vectorTo = from + SPECIES.loopBound(Math.max(0, to - from));
+        final var base = FloatVector.broadcast(SPECIES, baseLevel);
+        for (int i = from; i < vectorTo; i += SPECIES.length()) {
+            final var height = FloatVector.fromArray(SPECIES, heights, i);
+            final var velocity = FloatVector.fromArray(SPECIES, velocities, i);
+            final var acceleration = base.sub(height).mul(stiffness).sub(velocity.mul(dampening));
+
+            final var updatedVelocity = velocity.add(acceleration);
+            updatedVelocity.intoArray(velocities, i);
+            height.add(updatedVelocity).intoArray(heights, i);
+        }
+        SpringsKernel.super.update(heights, velocities, vectorTo, to, stiffness, dampening, baseLevel);
+    }
+
+    @Override
+    public void computeDeltas(float[] heights, float[] deltas, int from, int to, float spreadFactor) {
+        final int vectorTo = from + SPECIES.loopBound(Math.max(0, to - from));
+        for (int i = from; i < vectorTo; i += SPECIES.length()) {
+            final var right = FloatVector.fromArray(SPECIES, heights, i + 1);
+            right.sub(FloatVector.fromArray(SPECIES, heights, i)).mul(spreadFactor).intoArray(deltas, i);
+        }
+        SpringsKernel.super.computeDeltas(heights, deltas, vectorTo, to, spreadFactor);
+    }
+
+    @Override
+    public void applyDeltas(float[] heights, float[] velocities, float[] deltas, int from, int to) {
+        final int vectorTo = from + SPECIES.loopBound(Math.max(0, to - from));
+        for (int i = from; i < vectorTo; i += SPECIES.length()) {
+            final var left = FloatVector.fromArray(SPECIES, deltas, i - 1);
+            final var right = FloatVector.fromArray(SPECIES, deltas, i);
+            FloatVector.fromArray(SPECIES, velocities, i).sub(left).add(right).intoArray(velocities, i);
+            FloatVector.fromArray(SPECIES, heights, i).sub(left).add(right).intoArray(heights, i);
+        }
+        SpringsKernel.super.applyDeltas(heights, velocities, deltas, vectorTo, to);
+    }
+}
@@ -0,0 +1,131 @@
+package fr.baldurcrew.gdx25;
+
+import fr.baldurcrew.gdx25.water.ChunkRunner;
+import fr.baldurcrew.gdx25.water.ParallelSpringsSolver;
+import fr.baldurcrew.gdx25.water.SpringStore;
+import fr.baldurcrew.gdx25.water.SpringsKernel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Long runs of the Vector API springs kernel, compared bit for bit with the scalar kernel on the same springs. Lives with the desktop
+ * launcher, the core tests do not see the Vector API.
+ */
+class VectorSpringsKernelTest {
+
+    private static final int STEPS = 5000;
+    private static final float STIFFNESS = 0.005f;
+    private static final float DAMPENING = 0.025f;
+    private static final float BASE_LEVEL = 5f;
+    private static final int PASSES = 4;
+    private static final float SPREAD_FACTOR = 0.1f;
+    private static final float REST_EPSILON = 0.0005f;
+    private static final int ABSORBING_BOUNDARY_SPRINGS = 6;
+    private static final float ABSORBING_BOUNDARY_STRENGTH = 0.1f;
+
+    private final SpringsKernel vectorKernel = new VectorSpringsKernel();
+
+    @Test
+    void springsMatchScalarKernel() {
+        // Not a multiple of any vector length, so that the scalar tails run too
+        assertSpringsMatchScalarKernel(1003, false);
+    }
+
+    @Test
+    void fewSpringsMatchScalarKernel() {
+        // Shorter than a vector: the scalar tails only
+        assertSpringsMatchScalarKernel(5, false);
+    }
+
+    @Test
+    void parallelSolverSpringsMatchScalarKernel() {
+        assertSpringsMatchScalarKernel(1003, true);
+    }
+
+    @Test
+    void kernelRangesMatchScalarKernel() {
+        final var random = new Random(25);
+        final int size = 200;
+        for (int run = 0; run < 500; run++) {
+            final int from = 1 + random.nextInt(size / 2);
+            final int to = from + random.nextInt(size - 1 - from);
+            final var heights = new float[size];
+            final var velocities = new float[size];
+            final var deltas = new float[size];
+            for (int i = 0; i < size; i++) {
+                heights[i] = BASE_LEVEL + (random.nextFloat() - 0.5f) * 2f;
+                velocities[i] = (random.nextFloat() - 0.5f) * 0.2f;
+                deltas[i] = (random.nextFloat() - 0.5f) * 0.1f;
+            }
+            final var scalarHeights = heights.clone();
+            final var scalarVelocities = velocities.clone();
+            final var scalarDeltas = deltas.clone();
+
+            vectorKernel.update(heights, velocities, from, to, STIFFNESS, DAMPENING, BASE_LEVEL);
+            SpringsKernel.SCALAR.update(scalarHeights, scalarVelocities, from, to, STIFFNESS, DAMPENING, BASE_LEVEL);
+            vectorKernel.computeDeltas(heights, deltas, from, to, SPREAD_FACTOR);
+            SpringsKernel.SCALAR.computeDeltas(scalarHeights, scalarDeltas, from, to, SPREAD_FACTOR);
+            vectorKernel.applyDeltas(heights, velocities, deltas, from, to);
+            SpringsKernel.SCALAR.applyDeltas(scalarHeights, scalarVelocities, scalarDeltas, from, to);
+
+            for (int i = 0; i < size; i++) {
+                final int index = i;
+                final String range = " in [" + from + ", " + to + ")";
+                assertEquals(Float.floatToRawIntBits(scalarHeights[i]), Float.floatToRawIntBits(heights[i]), () -> "Height " + index + range);
+                assertEquals(Float.floatToRawIntBits(scalarVelocities[i]), Float.floatToRawIntBits(velocities[i]), () -> "Velocity " + index + range);
+                assertEquals(Float.floatToRawIntBits(scalarDeltas[i]), Float.floatToRawIntBits(deltas[i]), () -> "Delta " + index + range);
+            }
+        }
+    }
+
+    private void assertSpringsMatchScalarKernel(int springsCount, boolean parallel) {
+        final var scalar = new SpringStore(0f, 0.25f, springsCount, BASE_LEVEL);
+        final var vector = new SpringStore(0f, 0.25f, springsCount, BASE_LEVEL);
+        scalar.setAbsorbingBoundaries(ABSORBING_BOUNDARY_SPRINGS, ABSORBING_BOUNDARY_STRENGTH);
+        vector.setAbsorbingBoundaries(ABSORBING_BOUNDARY_SPRINGS, ABSORBING_BOUNDARY_STRENGTH);
+        vector.setKernel(vectorKernel);
+        final var solver = new ParallelSpringsSolver(ChunkRunner.SEQUENTIAL, vector, 64, 0);
+        final var scalarSplashes = new Random(25);
+        final var vectorSplashes = new Random(25);
+
+        int movingSteps = 0;
+        for (int step = 0; step < STEPS; step++) {
+            splash(scalar, scalarSplashes, step);
+            scalar.update(STIFFNESS, DAMPENING, BASE_LEVEL);
+            scalar.propagate(PASSES, SPREAD_FACTOR);
+            scalar.absorb(BASE_LEVEL);
+            scalar.updateActiveRange(REST_EPSILON, BASE_LEVEL);
+
+            splash(vector, vectorSplashes, step);
+            if (!parallel || !solver.solve(STIFFNESS, DAMPENING, BASE_LEVEL, PASSES, SPREAD_FACTOR)) {
+                vector.update(STIFFNESS, DAMPENING, BASE_LEVEL);
+                vector.propagate(PASSES, SPREAD_FACTOR);
+            }
+            vector.absorb(BASE_LEVEL);
+            vector.updateActiveRange(REST_EPSILON, BASE_LEVEL);
+
+            assertEquals(0, vector.countMismatches(scalar), "Mismatches at step " + step);
+            assertEquals(scalar.getActiveFrom(), vector.getActiveFrom(), "Active range start at step " + step);
+            assertEquals(scalar.getActiveTo(), vector.getActiveTo(), "Active range end at step " + step);
+            if (scalar.getActiveTo() > scalar.getActiveFrom()) {
+                movingSteps++;
+            }
+        }
+        assertTrue(movingSteps > STEPS / 2, "Springs moving on " + movingSteps + " steps only");
+    }
+
+    /**
+     * Hits a random spring every few steps, like the bodies falling in the water, so that the active range keeps growing and shrinking.
+     */
+    private static void splash(SpringStore springs, Random random, int step) {
+        if (step % 40 != 0) return;
+
+        final int index = random.nextInt(springs.size());
+        springs.addVelocity(index, (random.nextFloat() - 0.5f) * 0.4f);
+        springs.wake(index);
+    }
+}